@@ -1,32 +1,334 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+
 public class CriticalTempFinder {
+    // With 63 samples we can already binary-search any n that fits in a long,
+    // so any k above this behaves exactly like k = 63
+    static final int MAX_USEFUL_SAMPLES = 63;
+
+    // Moves the shared batch sweep will try before handing leftovers to binary search
+    static final int SWEEP_LIMIT = 1 << 16;
+
     public static int minMeasurements(int k, int n) {
+        // Delegate to the long solver - the answer is never more than n, so it fits back in an int
+        return (int) minMeasurements((long) k, (long) n);
+    }
+
+    public static long minMeasurements(long k, long n) {
+        // No levels to test means no measurements needed
+        if (n <= 0) return 0;
+
+        // Without any samples we can't measure anything
+        if (k <= 0) return -1;
+
         // Base case: if we only have 1 sample, we need to test each level one-by-one
         if (k == 1) return n;
 
-        // Create a 2D DP table where dp[i][j] is the max number of temp levels we can test
-        // with i samples and j measurements
-        int[][] dp = new int[k + 1][n + 1];
+        // Binary search the smallest number of moves whose capacity covers n levels.
+        // With k >= 2 samples, n moves is always enough, so n is a safe upper bound.
+        long lo = 1, hi = n;
+        while (lo < hi) {
+            long mid = lo + (hi - lo) / 2;
+            if (capacity(k, mid, n) >= n) {
+                hi = mid; // mid moves are enough, try fewer
+            } else {
+                lo = mid + 1; // mid moves fall short, need more
+            }
+        }
+        return lo;
+    }
+
+    // Max number of temp levels testable with k samples and m measurements, capped at limit.
+    // Closed form: f(k, m) = C(m, 1) + C(m, 2) + ... + C(m, k)
+    static long capacity(long k, long m, long limit) {
+        long total = 0;
+        long term = 1; // C(m, 0)
+        long upTo = Math.min(k, m); // C(m, i) is 0 once i > m
+
+        for (long i = 1; i <= upTo; i++) {
+            // C(m, i) = C(m, i-1) * (m - i + 1) / i, divided up front so the product stays exact
+            long g = gcd(term, i);
+            long factor = (m - i + 1) / (i / g);
+            long high = Math.multiplyHigh(term / g, factor);
+            long next = (term / g) * factor;
+
+            // Product left the long range, so it's certainly past the limit
+            if (high != 0 || next < 0) return limit;
+
+            term = next;
+            total += term;
+
+            // Once we cover the limit there's no point adding more terms (and risking overflow)
+            if (total >= limit || total < 0) return limit;
+        }
+        return total;
+    }
+
+    // Greatest common divisor, used to keep the binomial step exact
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    // Adds two non-negative longs, sticking at Long.MAX_VALUE instead of wrapping around
+    static long saturatingAdd(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    // Answers many (k, n) queries at once by sharing one rolling-column DP sweep
+    public static long[] minMeasurements(long[] ks, long[] ns) {
+        int q = ks.length;
+        long[] answers = new long[q];
 
-        // Initialize moves counter - we'll increment this until we can cover n levels
-        int moves = 0;
+        // Sort query ids by (effective k, n) so each k level is a run we can walk with a pointer
+        int[] order = new int[q];
+        int pending = 0;
+        for (int i = 0; i < q; i++) {
+            long n = ns[i];
+            long k = ks[i];
+            if (n <= 0) {
+                answers[i] = 0;
+            } else if (k <= 0) {
+                answers[i] = -1;
+            } else if (k == 1) {
+                answers[i] = n;
+            } else {
+                order[pending++] = i; // Needs the sweep
+            }
+        }
+        long[] keys = new long[pending];
+        for (int i = 0; i < pending; i++) {
+            keys[i] = effectiveSamples(ks[order[i]]);
+        }
+        sortQueries(order, keys, ns, pending);
 
-        // Keep going until we can test at least n levels with k samples
-        while (dp[k][moves] < n) {
-            // Increment the number of measurements we're allowed to use
-            moves++;
+        // ptr[k]..end[k] is the still-unanswered run of sorted queries with k samples
+        int[] ptr = new int[MAX_USEFUL_SAMPLES + 1];
+        int[] end = new int[MAX_USEFUL_SAMPLES + 1];
+        for (int i = 0; i < pending; i++) {
+            end[(int) keys[i]] = i + 1;
+        }
+        for (int i = pending - 1; i >= 0; i--) {
+            ptr[(int) keys[i]] = i;
+        }
+        int maxK = pending == 0 ? 0 : (int) keys[pending - 1];
+
+        // dp[i] = max levels testable with i samples and the current number of moves
+        long[] dp = new long[maxK + 1];
+        int answered = 0;
+
+        for (int moves = 1; moves <= SWEEP_LIMIT && answered < pending; moves++) {
+            // Walk samples downward so dp[i-1] still holds the previous column
+            for (int i = maxK; i >= 1; i--) {
+                dp[i] = saturatingAdd(saturatingAdd(1, dp[i - 1]), dp[i]);
+            }
+
+            // Hand out this move count to every query the column now covers
+            for (int i = 2; i <= maxK; i++) {
+                while (ptr[i] < end[i] && ns[order[ptr[i]]] <= dp[i]) {
+                    answers[order[ptr[i]]] = moves;
+                    ptr[i]++;
+                    answered++;
+                }
+            }
+        }
 
-            // Loop through each number of samples from 1 to k
-            for (int i = 1; i <= k; i++) {
-                // For i samples and 'moves' measurements, calculate max levels testable:
-                // - 1: the current temp we test
-                // - dp[i-1][moves-1]: if sample reacts, we lose it and handle lower levels
-                // - dp[i][moves-1]: if sample doesn’t react, we reuse it for upper levels
-                dp[i][moves] = 1 + dp[i - 1][moves - 1] + dp[i][moves - 1];
+        // Anything still open (few samples, huge n) falls back to the binary search
+        for (int i = 2; i <= maxK; i++) {
+            for (int j = ptr[i]; j < end[i]; j++) {
+                answers[order[j]] = minMeasurements(keys[j], ns[order[j]]);
             }
         }
+        return answers;
+    }
+
+    // Clamp k to the point where extra samples stop helping
+    private static long effectiveSamples(long k) {
+        return Math.min(k, MAX_USEFUL_SAMPLES);
+    }
 
-        // Once dp[k][moves] >= n, we’ve found the smallest number of moves needed
-        return moves;
+    // Sort the first len query ids by (key, n) - bottom-up merge sort on primitive arrays
+    private static void sortQueries(int[] order, long[] keys, long[] ns, int len) {
+        int[] tmpOrder = new int[len];
+        long[] tmpKeys = new long[len];
+        for (int width = 1; width < len; width *= 2) {
+            for (int lo = 0; lo < len - width; lo += 2 * width) {
+                int mid = lo + width;
+                int hi = Math.min(lo + 2 * width, len);
+                int a = lo, b = mid, out = lo;
+                while (a < mid || b < hi) {
+                    boolean takeLeft = b >= hi || (a < mid && (keys[a] < keys[b]
+                            || (keys[a] == keys[b] && ns[order[a]] <= ns[order[b]])));
+                    int from = takeLeft ? a++ : b++;
+                    tmpOrder[out] = order[from];
+                    tmpKeys[out] = keys[from];
+                    out++;
+                }
+                System.arraycopy(tmpOrder, lo, order, lo, hi - lo);
+                System.arraycopy(tmpKeys, lo, keys, lo, hi - lo);
+            }
+        }
+    }
+
+    // Precomputed f(k, m) rows so repeated queries become a binary search instead of a re-run.
+    // Rows are grown lazily, readers never lock, and the table can be saved and mapped back in.
+    static class CapacityIndex {
+        private static final int MAGIC = 0x43544631; // "CTF1" file header
+
+        final int maxK;       // Largest sample count with its own row
+        final int maxColumns; // Hard cap on how many moves a row may hold
+
+        // rows[k][m] = f(k, m); a row stops early once it hits Long.MAX_VALUE (saturated).
+        // Replaced wholesale on growth, so readers always see a consistent snapshot.
+        private volatile long[][] rows;
+
+        CapacityIndex() {
+            this(64, 1 << 16);
+        }
+
+        CapacityIndex(int maxK, int maxColumns) {
+            this.maxK = maxK;
+            this.maxColumns = maxColumns;
+            long[][] initial = new long[maxK + 1][];
+            for (int k = 0; k <= maxK; k++) {
+                initial[k] = new long[]{0}; // f(k, 0) = 0, no moves means no levels
+            }
+            this.rows = initial;
+        }
+
+        // Same contract as CriticalTempFinder.minMeasurements, served from the table when possible
+        long minMeasurements(long k, long n) {
+            if (n <= 0) return 0;
+            if (k <= 0) return -1;
+            if (k == 1) return n; // One sample is always a linear scan, no table needed
+
+            if (k > maxK) {
+                // Past 63 samples the answer doesn't change, otherwise the table can't help
+                if (maxK < MAX_USEFUL_SAMPLES) return CriticalTempFinder.minMeasurements(k, n);
+                k = maxK;
+            }
+
+            while (true) {
+                long[][] snapshot = rows;
+                long[] row = snapshot[(int) k];
+
+                // Row already reaches n, so the answer is somewhere inside it
+                if (row[row.length - 1] >= n) return lowerBound(row, n);
+
+                // Otherwise extend the table, or give up and use the closed form
+                if (!grow(snapshot[1].length)) return CriticalTempFinder.minMeasurements(k, n);
+            }
+        }
+
+        // Smallest m with row[m] >= n (rows are strictly increasing until they saturate)
+        private static long lowerBound(long[] row, long n) {
+            int lo = 0, hi = row.length - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (row[mid] >= n) hi = mid;
+                else lo = mid + 1;
+            }
+            return lo;
+        }
+
+        // Doubles the number of columns; returns false once the cap is reached
+        private synchronized boolean grow(int seenColumns) {
+            long[][] old = rows;
+            int columns = old[1].length; // Row 1 is f(1, m) = m, it never saturates here
+
+            // Another thread already grew the table while we were waiting
+            if (columns > seenColumns) return true;
+            if (columns >= maxColumns) return false;
+
+            int newColumns = (int) Math.min(maxColumns, Math.max(64L, 2L * columns));
+            long[][] next = new long[maxK + 1][];
+            next[0] = old[0];
+
+            for (int k = 1; k <= maxK; k++) {
+                long[] prev = old[k];
+
+                // A saturated row is already complete
+                if (prev[prev.length - 1] == Long.MAX_VALUE) {
+                    next[k] = prev;
+                    continue;
+                }
+
+                long[] row = java.util.Arrays.copyOf(prev, newColumns);
+                int len = newColumns;
+                for (int m = prev.length; m < newColumns; m++) {
+                    // f(k, m) = 1 + f(k-1, m-1) + f(k, m-1)
+                    long below = k == 1 ? 0 : valueAt(next[k - 1], m - 1);
+                    row[m] = saturatingAdd(saturatingAdd(1, below), row[m - 1]);
+                    if (row[m] == Long.MAX_VALUE) {
+                        len = m + 1; // Saturated, nothing further to store
+                        break;
+                    }
+                }
+                next[k] = len == newColumns ? row : java.util.Arrays.copyOf(row, len);
+            }
+
+            rows = next; // Publish the new snapshot
+            return true;
+        }
+
+        // Reads f(k, m), treating anything past a truncated row as saturated
+        private static long valueAt(long[] row, int m) {
+            return m < row.length ? row[m] : Long.MAX_VALUE;
+        }
+
+        // Writes the table as little-endian: magic, maxK, maxColumns, then (length, values) per row
+        void save(Path file) throws IOException {
+            long[][] snapshot = rows;
+            long bytes = 3L * Integer.BYTES;
+            for (long[] row : snapshot) {
+                bytes += Integer.BYTES + (long) row.length * Long.BYTES;
+            }
+
+            ByteBuffer buf = ByteBuffer.allocate((int) bytes).order(ByteOrder.LITTLE_ENDIAN);
+            buf.putInt(MAGIC).putInt(maxK).putInt(maxColumns);
+            for (long[] row : snapshot) {
+                buf.putInt(row.length);
+                for (long value : row) {
+                    buf.putLong(value);
+                }
+            }
+            buf.flip();
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (buf.hasRemaining()) {
+                    channel.write(buf);
+                }
+            }
+        }
+
+        // Maps a file written by save() and bulk-copies the rows out, no DP rebuild needed
+        static CapacityIndex load(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+                if (mapped.getInt() != MAGIC) throw new IOException("Not a capacity index file: " + file);
+                CapacityIndex index = new CapacityIndex(mapped.getInt(), mapped.getInt());
+
+                long[][] loaded = new long[index.maxK + 1][];
+                for (int k = 0; k <= index.maxK; k++) {
+                    long[] row = new long[mapped.getInt()];
+                    mapped.asLongBuffer().get(row);
+                    mapped.position(mapped.position() + row.length * Long.BYTES);
+                    loaded[k] = row;
+                }
+                index.rows = loaded;
+                return index;
+            }
+        }
     }
 
     public static void main(String[] args) {
@@ -44,5 +346,35 @@ public class CriticalTempFinder {
         int k3 = 3, n3 = 14;
         // Print the result for k=3, n=14, expecting 4 measurements
         System.out.println("k=" + k3 + ", n=" + n3 + ": " + minMeasurements(k3, n3));
+
+        // Test case 4: huge n that would have blown up the old 2D table
+        long k4 = 2, n4 = 1_000_000_000_000L;
+        // Print the result for k=2, n=10^12, expecting 1414214 measurements
+        System.out.println("k=" + k4 + ", n=" + n4 + ": " + minMeasurements(k4, n4));
+
+        // Test case 5: batch of queries answered in one sweep
+        long[] ks = {1, 2, 3, 2, 100, 2};
+        long[] ns = {2, 6, 14, 100, 1_000_000, 1_000_000_000_000L};
+        // Print the batch results, expecting [2, 3, 4, 14, 20, 1414214]
+        System.out.println("batch: " + java.util.Arrays.toString(minMeasurements(ks, ns)));
+
+        // Test case 6: same queries through the capacity index, then saved and mapped back in
+        CapacityIndex index = new CapacityIndex();
+        StringBuilder indexed = new StringBuilder();
+        for (int i = 0; i < ks.length; i++) {
+            indexed.append(i == 0 ? "[" : ", ").append(index.minMeasurements(ks[i], ns[i]));
+        }
+        // Print the indexed results, expecting the same as the batch
+        System.out.println("index: " + indexed + "]");
+        try {
+            Path file = Files.createTempFile("capacity", ".idx");
+            index.save(file);
+            CapacityIndex reloaded = CapacityIndex.load(file);
+            // Print a reloaded lookup for k=3, n=14, expecting 4 measurements
+            System.out.println("reloaded k=3, n=14: " + reloaded.minMeasurements(3, 14));
+            Files.delete(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
     }
 }
\ No newline at end of file
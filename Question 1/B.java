@@ -1,69 +1,434 @@
-import java.util.PriorityQueue;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 public class KthLowestReturn {
-    public static int findKthLowest(int[] returns1, int[] returns2, int k) {
-        // Create a min-heap to store pairs of indices and their product
-        // The heap will order by product value (smallest first)
-        PriorityQueue<int[]> minHeap = new PriorityQueue<>((a, b) -> a[0] - b[0]);
+    // One side of the return pairs, sorted once and split by sign.
+    // Negatives are stored as magnitudes so every sweep works on ascending positive values.
+    static class SignedReturns {
+        long[] neg;   // |r| for every r < 0, ascending by magnitude
+        int negCount; // Number of negative returns
+        int zeros;    // Number of zero returns
+        long[] pos;   // Every r > 0, ascending
+        int posCount; // Number of positive returns
+
+        SignedReturns(int[] returns) {
+            // Sort a copy so callers don't have to pre-sort (and we don't touch their array)
+            int[] sorted = returns.clone();
+            Arrays.sort(sorted);
+
+            // Count each sign class first so the arrays are sized exactly
+            for (int r : sorted) {
+                if (r < 0) negCount++;
+                else if (r == 0) zeros++;
+                else posCount++;
+            }
+            neg = new long[negCount];
+            pos = new long[posCount];
+
+            // Negatives come first in sorted order, largest magnitude first, so fill them backwards
+            for (int i = 0; i < negCount; i++) {
+                neg[negCount - 1 - i] = -(long) sorted[i];
+            }
+            for (int i = 0; i < posCount; i++) {
+                pos[i] = sorted[negCount + zeros + i];
+            }
+        }
+
+        // Total number of returns on this side
+        int size() {
+            return negCount + zeros + posCount;
+        }
+
+        // Smallest return on this side
+        long min() {
+            if (negCount > 0) return -neg[negCount - 1];
+            if (zeros > 0) return 0;
+            return pos[0];
+        }
+
+        // Largest return on this side
+        long max() {
+            if (posCount > 0) return pos[posCount - 1];
+            if (zeros > 0) return 0;
+            return -neg[0];
+        }
 
-        // Start with the smallest possible product: returns1[0] * returns2[0]
-        // Store [product, index1, index2] in the heap
-        minHeap.offer(new int[]{returns1[0] * returns2[0], 0, 0});
+        // The j-th smallest return on this side (0-based), read straight from the sign buffers
+        long valueAt(int j) {
+            if (j < negCount) return -neg[negCount - 1 - j];
+            if (j < negCount + zeros) return 0;
+            return pos[j - negCount - zeros];
+        }
+
+        // Adds one return, keeping its sign buffer sorted - binary search for the slot, then shift
+        void insert(int r) {
+            if (r == 0) {
+                zeros++;
+            } else if (r < 0) {
+                neg = insertSorted(neg, negCount, -(long) r);
+                negCount++;
+            } else {
+                pos = insertSorted(pos, posCount, r);
+                posCount++;
+            }
+        }
+
+        // Inserts value into the first count slots of buffer, doubling the buffer when it is full
+        private static long[] insertSorted(long[] buffer, int count, long value) {
+            if (count == buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(8, count * 2));
+            }
+
+            // First slot holding something larger than value
+            int lo = 0, hi = count;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (buffer[mid] <= value) lo = mid + 1;
+                else hi = mid;
+            }
 
-        // Keep track of visited pairs to avoid duplicates
-        // Using a string "i-j" to mark indices we've seen
-        java.util.HashSet<String> visited = new java.util.HashSet<>();
+            System.arraycopy(buffer, lo, buffer, lo + 1, count - lo);
+            buffer[lo] = value;
+            return buffer;
+        }
+    }
 
-        // Add the initial pair to visited
-        visited.add("0-0");
+    // Finds the k-th smallest product by binary searching the product value and
+    // counting pairs <= x with two-pointer sweeps. O((n+m) * log range), no allocation per step.
+    static class ProductEngine {
+        // Chunk size (in returns1 entries) below which a count task stops splitting
+        static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 16;
 
-        // Counter for how many products we've popped off
-        int count = 0;
+        final SignedReturns left;  // returns1
+        final SignedReturns right; // returns2
+        final ForkJoinPool pool;   // Pool for parallel counting, null means sequential
+        final int parallelThreshold;
 
-        // Variable to store the current product
-        int result = 0;
+        ProductEngine(int[] returns1, int[] returns2) {
+            this(new SignedReturns(returns1), new SignedReturns(returns2));
+        }
 
-        // Loop until we find the k-th smallest product
-        while (count < k) {
-            // Pop the smallest product from the heap
-            int[] current = minHeap.poll();
+        ProductEngine(SignedReturns left, SignedReturns right) {
+            this(left, right, null, Integer.MAX_VALUE);
+        }
+
+        // Parallel engine: counting sweeps over returns1 are split into chunks of at most parallelThreshold
+        ProductEngine(int[] returns1, int[] returns2, ForkJoinPool pool, int parallelThreshold) {
+            this(new SignedReturns(returns1), new SignedReturns(returns2), pool, parallelThreshold);
+        }
 
-            // Store the product as our potential result
-            result = current[0];
+        ProductEngine(SignedReturns left, SignedReturns right, ForkJoinPool pool, int parallelThreshold) {
+            this.left = left;
+            this.right = right;
+            this.pool = pool;
+            this.parallelThreshold = Math.max(1, parallelThreshold);
+        }
+
+        // Total number of (i, j) pairs
+        long pairCount() {
+            return (long) left.size() * right.size();
+        }
+
+        // How many pairs have returns1[i] * returns2[j] <= x
+        long countAtMost(long x) {
+            long count = 0;
+
+            // Any pair with a zero has product 0
+            if (x >= 0) {
+                count += (long) left.zeros * right.size();
+                count += (long) right.zeros * (left.size() - left.zeros);
+            }
+
+            // Same signs give positive products |a| * |b|
+            count += countQuadrant(left.pos, left.posCount, right.pos, right.posCount, x);
+            count += countQuadrant(left.neg, left.negCount, right.neg, right.negCount, x);
+
+            // Mixed signs give -(|a| * |b|) <= x, i.e. |a| * |b| >= -x, i.e. not |a| * |b| <= -x - 1
+            count += (long) left.posCount * right.negCount
+                    - countQuadrant(left.pos, left.posCount, right.neg, right.negCount, -x - 1);
+            count += (long) left.negCount * right.posCount
+                    - countQuadrant(left.neg, left.negCount, right.pos, right.posCount, -x - 1);
+
+            return count;
+        }
+
+        // Counts one sign quadrant, in parallel when a pool is set and returns1's side is big enough
+        private long countQuadrant(long[] p, int pCount, long[] q, int qCount, long limit) {
+            if (pool == null || pCount <= parallelThreshold || limit <= 0 || qCount == 0) {
+                return countProductsAtMost(p, 0, pCount, q, qCount, limit);
+            }
+            return pool.invoke(new CountTask(p, 0, pCount, q, qCount, limit, parallelThreshold));
+        }
+
+        // Pairs with p[i] * q[j] <= limit for i in [from, to), ascending positive p and q (two-pointer sweep)
+        static long countProductsAtMost(long[] p, int from, int to, long[] q, int qCount, long limit) {
+            // Positive products are at least 1
+            if (limit <= 0 || from >= to || qCount == 0) return 0;
+
+            // Largest q that still fits p[from]; only ever moves down as p grows.
+            // Found by binary search so a chunk can start its sweep mid-array.
+            int lo = 0, hi = qCount;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (p[from] * q[mid] <= limit) lo = mid + 1;
+                else hi = mid;
+            }
+            int j = lo - 1;
+
+            long count = 0;
+            for (int i = from; i < to && j >= 0; i++) {
+                while (j >= 0 && p[i] * q[j] > limit) {
+                    j--;
+                }
+                count += j + 1;
+            }
+            return count;
+        }
+
+        // Fork-join task counting qualifying pairs over a chunk of returns1
+        static class CountTask extends RecursiveTask<Long> {
+            final long[] p, q;
+            final int from, to, qCount, threshold;
+            final long limit;
+
+            CountTask(long[] p, int from, int to, long[] q, int qCount, long limit, int threshold) {
+                this.p = p;
+                this.from = from;
+                this.to = to;
+                this.q = q;
+                this.qCount = qCount;
+                this.limit = limit;
+                this.threshold = threshold;
+            }
+
+            @Override
+            protected Long compute() {
+                // Small enough: plain sequential sweep
+                if (to - from <= threshold) {
+                    return countProductsAtMost(p, from, to, q, qCount, limit);
+                }
+
+                // Split returns1 in half, count the right half here while the left half is forked
+                int mid = (from + to) >>> 1;
+                CountTask leftHalf = new CountTask(p, from, mid, q, qCount, limit, threshold);
+                leftHalf.fork();
+                long rightCount = new CountTask(p, mid, to, q, qCount, limit, threshold).compute();
+                return leftHalf.join() + rightCount;
+            }
+        }
 
-            // Get the indices used for this product
-            int i = current[1];
-            int j = current[2];
+        // k-th smallest product (1-based)
+        long kthLowest(long k) {
+            if (k < 1 || k > pairCount()) {
+                throw new IllegalArgumentException("k must be between 1 and " + pairCount() + ", got " + k);
+            }
 
-            // Increment count since we’ve processed one product
-            count++;
+            // The extreme products always come from the extreme returns
+            long a = left.min(), b = left.max(), c = right.min(), d = right.max();
+            long lo = Math.min(Math.min(a * c, a * d), Math.min(b * c, b * d));
+            long hi = Math.max(Math.max(a * c, a * d), Math.max(b * c, b * d));
 
-            // If we’re not at the end of returns1, add the next pair from returns1
-            if (i + 1 < returns1.length) {
-                String nextPair1 = (i + 1) + "-" + j;
-                // Only add if we haven’t seen this pair before
-                if (!visited.contains(nextPair1)) {
-                    minHeap.offer(new int[]{returns1[i + 1] * returns2[j], i + 1, j});
-                    visited.add(nextPair1);
+            // Smallest x with at least k products <= x is the k-th product
+            while (lo < hi) {
+                long mid = (lo + hi) >> 1; // Floors correctly for negatives too
+                if (countAtMost(mid) >= k) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
                 }
             }
+            return lo;
+        }
+    }
+
+    // Rank / select / range queries over all return-pair products that stay valid as new
+    // returns are appended to either side - no re-sorting and no heap rebuild per query
+    static class ProductRankIndex {
+        final SignedReturns left;   // returns1, kept sorted in growable primitive buffers
+        final SignedReturns right;  // returns2, same
+        final ProductEngine engine; // Counting engine reading the live buffers
+
+        ProductRankIndex(int[] returns1, int[] returns2) {
+            left = new SignedReturns(returns1);
+            right = new SignedReturns(returns2);
+            engine = new ProductEngine(left, right);
+        }
+
+        // Append a new return to returns1
+        void addReturn1(int r) {
+            left.insert(r);
+        }
+
+        // Append a new return to returns2
+        void addReturn2(int r) {
+            right.insert(r);
+        }
+
+        // Number of products currently tracked
+        long size() {
+            return engine.pairCount();
+        }
+
+        // How many products are <= x
+        long rank(long x) {
+            return engine.countAtMost(x);
+        }
+
+        // The k-th smallest product (1-based)
+        long select(long k) {
+            return engine.kthLowest(k);
+        }
+
+        // All products with ranks k1..k2 (1-based, inclusive), in ascending order
+        long[] range(long k1, long k2) {
+            if (k1 < 1 || k2 < k1 || k2 > size()) {
+                throw new IllegalArgumentException("Invalid rank range [" + k1 + ", " + k2 + "] for " + size() + " products");
+            }
+            long span = k2 - k1 + 1;
+            if (span > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Rank range too large to materialise: " + span);
+            }
+
+            long lo = select(k1);
+            long hi = select(k2);
+            long[] result = new long[(int) span];
+
+            // Everything in the range ties, nothing to enumerate
+            if (lo == hi) {
+                Arrays.fill(result, lo);
+                return result;
+            }
 
-            // If we’re not at the end of returns2, add the next pair from returns2
-            if (j + 1 < returns2.length) {
-                String nextPair2 = i + "-" + (j + 1);
-                // Only add if we haven’t seen this pair before
-                if (!visited.contains(nextPair2)) {
-                    minHeap.offer(new int[]{returns1[i] * returns2[j + 1], i, j + 1});
-                    visited.add(nextPair2);
+            // Copies of lo that fall inside the rank range, then the strictly-between block, then hi
+            int loCopies = (int) (rank(lo) - (k1 - 1));
+            int between = (int) (rank(hi - 1) - rank(lo));
+            Arrays.fill(result, 0, loCopies, lo);
+            Arrays.fill(result, loCopies + between, result.length, hi);
+
+            // Enumerate products strictly between lo and hi, then sort just that block
+            int filled = collectBetween(lo + 1, hi - 1, result, loCopies);
+            Arrays.sort(result, loCopies, filled);
+            return result;
+        }
+
+        // Writes every product in [low, high] into out starting at offset, returns the end offset
+        private int collectBetween(long low, long high, long[] out, int offset) {
+            int rightSize = right.size();
+            for (int i = 0; i < left.size(); i++) {
+                long a = left.valueAt(i);
+
+                if (a == 0) {
+                    // Every pair with a zero is 0
+                    if (low <= 0 && 0 <= high) {
+                        for (int j = 0; j < rightSize; j++) {
+                            out[offset++] = 0;
+                        }
+                    }
+                } else if (a > 0) {
+                    // Products grow with b: start at the first b with a * b >= low
+                    for (int j = firstIndex(a, low, true); j < rightSize; j++) {
+                        long product = a * right.valueAt(j);
+                        if (product > high) break;
+                        out[offset++] = product;
+                    }
+                } else {
+                    // Products shrink as b grows: start at the first b with a * b <= high
+                    for (int j = firstIndex(a, high, false); j < rightSize; j++) {
+                        long product = a * right.valueAt(j);
+                        if (product < low) break;
+                        out[offset++] = product;
+                    }
                 }
             }
+            return offset;
         }
 
-        // After k iterations, result is the k-th smallest product
-        return result;
+        // Binary search over returns2 for the first j with a * b >= bound (atLeast) or a * b <= bound
+        private int firstIndex(long a, long bound, boolean atLeast) {
+            int lo = 0, hi = right.size();
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                long product = a * right.valueAt(mid);
+                boolean reached = atLeast ? product >= bound : product <= bound;
+                if (reached) hi = mid;
+                else lo = mid + 1;
+            }
+            return lo;
+        }
+    }
+
+    public static int findKthLowest(int[] returns1, int[] returns2, int k) {
+        // Kept for existing callers - same engine, narrowed back to int. Products past the int range
+        // throw ArithmeticException instead of wrapping: use the long overload for those.
+        return Math.toIntExact(findKthLowest(returns1, returns2, (long) k));
+    }
+
+    public static long findKthLowest(int[] returns1, int[] returns2, long k) {
+        // Build the sign-partitioned engine once and binary search on the product value
+        return new ProductEngine(returns1, returns2).kthLowest(k);
+    }
+
+    public static long findKthLowestParallel(int[] returns1, int[] returns2, long k, int parallelThreshold) {
+        // Same search, but each count splits returns1 across the common fork-join pool
+        return new ProductEngine(returns1, returns2, ForkJoinPool.commonPool(), parallelThreshold).kthLowest(k);
+    }
+
+    // Times sequential vs parallel kth search at each returns1 size (run with: bench [sizes...]).
+    // 10^8 entries needs a heap of a few GB, e.g. -Xmx4g.
+    static void benchmark(int[] sizes) {
+        Random rand = new Random(42);
+        int[] returns2 = new int[1000];
+        for (int i = 0; i < returns2.length; i++) {
+            returns2[i] = rand.nextInt(2_000_001) - 1_000_000;
+        }
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        System.out.println("size        sequential(ms)  parallel(ms)  speedup  (" + pool.getParallelism() + " workers)");
+        for (int size : sizes) {
+            int[] returns1 = new int[size];
+            for (int i = 0; i < size; i++) {
+                returns1[i] = rand.nextInt(2_000_001) - 1_000_000;
+            }
+            long k = (long) size * returns2.length / 2;
+
+            // Build both engines up front so only the search itself is timed
+            ProductEngine sequential = new ProductEngine(returns1, returns2);
+            ProductEngine parallel = new ProductEngine(sequential.left, sequential.right, pool,
+                    ProductEngine.DEFAULT_PARALLEL_THRESHOLD);
+
+            // One warm-up round each so the JIT has compiled the sweeps
+            sequential.kthLowest(k);
+            parallel.kthLowest(k);
+
+            long start = System.nanoTime();
+            long expected = sequential.kthLowest(k);
+            long seqNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long actual = parallel.kthLowest(k);
+            long parNanos = System.nanoTime() - start;
+
+            if (expected != actual) {
+                throw new IllegalStateException("Parallel result " + actual + " != sequential " + expected);
+            }
+            System.out.printf("%-11d %-15.1f %-13.1f %.2fx%n", size, seqNanos / 1e6, parNanos / 1e6,
+                    (double) seqNanos / parNanos);
+        }
     }
 
     public static void main(String[] args) {
+        // Benchmark mode: sequential vs parallel at 10^6, 10^7 and 10^8 returns (or the sizes given)
+        if (args.length > 0 && args[0].equals("bench")) {
+            int[] sizes = args.length > 1 ? new int[args.length - 1] : new int[]{1_000_000, 10_000_000, 100_000_000};
+            for (int i = 1; i < args.length; i++) {
+                sizes[i - 1] = Integer.parseInt(args[i]);
+            }
+            benchmark(sizes);
+            return;
+        }
+
         // Test case 1: returns1 = [2,5], returns2 = [3,4], k = 2
         int[] returns1a = {2, 5};
         int[] returns2a = {3, 4};
@@ -77,5 +442,33 @@ public class KthLowestReturn {
         int k2 = 6;
         // Print the k-th lowest product for this case
         System.out.println("returns1=[-4,-2,0,3], returns2=[2,4], k=6: " + findKthLowest(returns1b, returns2b, k2));
+
+        // Test case 3: both sides negative, returns1 = [-3,-1], returns2 = [-2,5], k = 3
+        int[] returns1c = {-3, -1};
+        int[] returns2c = {-2, 5};
+        int k3 = 3;
+        // Print the k-th lowest product for this case, expecting 2
+        System.out.println("returns1=[-3,-1], returns2=[-2,5], k=3: " + findKthLowest(returns1c, returns2c, k3));
+
+        // Test case 4: products past the int range
+        int[] returns1d = {-2_000_000_000, 2_000_000_000};
+        int[] returns2d = {2_000_000_000};
+        long k4 = 2;
+        // Print the k-th lowest product for this case, expecting 4000000000000000000
+        System.out.println("returns1=[-2e9,2e9], returns2=[2e9], k=2: " + findKthLowest(returns1d, returns2d, k4));
+
+        // Test case 5: rank index over [-4,-2,0,3] x [2,4], then a new return appended
+        ProductRankIndex index = new ProductRankIndex(returns1b, returns2b);
+        // Print how many products are <= 0, expecting 6
+        System.out.println("products <= 0: " + index.rank(0));
+        // Print ranks 2..5, expecting [-8, -8, -4, 0]
+        System.out.println("ranks 2..5: " + Arrays.toString(index.range(2, 5)));
+        index.addReturn2(-1);
+        // Print ranks 1..4 after adding -1 to returns2, expecting [-16, -8, -8, -4]
+        System.out.println("ranks 1..4 after adding -1: " + Arrays.toString(index.range(1, 4)));
+
+        // Test case 6: parallel counting with a tiny threshold so it actually splits
+        // Print the k-th lowest product for test case 2 again, expecting 0
+        System.out.println("parallel, k=6: " + findKthLowestParallel(returns1b, returns2b, 6, 1));
     }
 }
\ No newline at end of file
@@ -1,3 +1,19 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
 public class MinRewards {
     public static int minRewards(int[] ratings) {
         // Create an array to store the rewards for each employee, initialized to 1 (minimum reward)
@@ -32,7 +48,303 @@ public class MinRewards {
         return totalRewards;
     }
 
-    public static void main(String[] args) {
+    public static long minRewards(IntStream ratings) {
+        // Pull ratings one at a time so the stream never has to be materialised
+        return minRewards(ratings.iterator());
+    }
+
+    public static long minRewards(PrimitiveIterator.OfInt ratings) {
+        // No employees, no rewards
+        if (!ratings.hasNext()) return 0;
+
+        // Single pass slope counting: only the lengths of the current runs are kept
+        long total = 1; // First employee gets 1
+        long up = 0;    // Length of the current strictly increasing run
+        long down = 0;  // Length of the current strictly decreasing run
+        long peak = 0;  // Length of the increasing run that led into the current peak
+        int prev = ratings.nextInt();
+
+        while (ratings.hasNext()) {
+            int curr = ratings.nextInt();
+
+            if (curr > prev) {
+                // Climbing: each step gets one more than the last
+                up++;
+                down = 0;
+                peak = up;
+                total += 1 + up;
+            } else if (curr == prev) {
+                // Flat: neighbours with equal ratings don't constrain each other, start fresh
+                up = 0;
+                down = 0;
+                peak = 0;
+                total += 1;
+            } else {
+                // Descending: every employee already in the down-run gets bumped by one,
+                // and the new one gets 1 - so the run adds its new length
+                up = 0;
+                down++;
+                total += 1 + down;
+
+                // The peak only needs bumping once the down-run outgrows the up-run before it
+                if (peak >= down) total--;
+            }
+            prev = curr;
+        }
+
+        // Return the minimum total rewards needed
+        return total;
+    }
+
+    // Keeps the minimum total current while single ratings change. Each employee's reward is
+    // max(up-run ending here, down-run starting here); an edit only disturbs the runs through it.
+    static class IncrementalRewards {
+        final int[] ratings;
+        final int[] left;  // Length of the strictly increasing run ending at i
+        final int[] right; // Length of the strictly decreasing run starting at i
+        long total;        // Sum of max(left[i], right[i])
+
+        IncrementalRewards(int[] ratings) {
+            int n = ratings.length;
+            this.ratings = ratings.clone();
+            this.left = new int[n];
+            this.right = new int[n];
+
+            // Same two passes as minRewards, but both directions are kept for later edits
+            for (int i = 0; i < n; i++) {
+                left[i] = i > 0 && this.ratings[i] > this.ratings[i - 1] ? left[i - 1] + 1 : 1;
+            }
+            for (int i = n - 1; i >= 0; i--) {
+                right[i] = i < n - 1 && this.ratings[i] > this.ratings[i + 1] ? right[i + 1] + 1 : 1;
+            }
+            for (int i = 0; i < n; i++) {
+                total += Math.max(left[i], right[i]);
+            }
+        }
+
+        // Current minimum total rewards
+        long total() {
+            return total;
+        }
+
+        // Current reward of one employee
+        int rewardAt(int i) {
+            return Math.max(left[i], right[i]);
+        }
+
+        // Changes one rating and repairs only the runs that pass through it
+        void updateRating(int index, int newValue) {
+            int n = ratings.length;
+            ratings[index] = newValue;
+
+            // Up-runs flow rightwards: stop once a run length comes out unchanged past the edit
+            for (int j = index; j < n; j++) {
+                int updated = j > 0 && ratings[j] > ratings[j - 1] ? left[j - 1] + 1 : 1;
+                if (j > index && updated == left[j]) break;
+                int before = rewardAt(j);
+                left[j] = updated;
+                total += rewardAt(j) - before;
+            }
+
+            // Down-runs flow leftwards, same early stop
+            for (int j = index; j >= 0; j--) {
+                int updated = j < n - 1 && ratings[j] > ratings[j + 1] ? right[j + 1] + 1 : 1;
+                if (j < index && updated == right[j]) break;
+                int before = rewardAt(j);
+                right[j] = updated;
+                total += rewardAt(j) - before;
+            }
+        }
+    }
+
+    // A file of little-endian ints mapped straight into memory (zero-copy).
+    // FileChannel.map tops out at 2 GB, so bigger files are mapped as several regions.
+    static class MappedRatings {
+        static final int REGION_SHIFT = 28;  // 2^28 ints = 1 GB per mapped region
+        static final int REGION_MASK = (1 << REGION_SHIFT) - 1;
+
+        final long count;        // Number of ratings in the file
+        final IntBuffer[] regions;
+
+        MappedRatings(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long bytes = channel.size();
+                if (bytes % Integer.BYTES != 0) {
+                    throw new IOException("File size " + bytes + " is not a whole number of ints: " + file);
+                }
+                count = bytes / Integer.BYTES;
+
+                int regionCount = (int) ((count + REGION_MASK) >>> REGION_SHIFT);
+                regions = new IntBuffer[regionCount];
+                for (int r = 0; r < regionCount; r++) {
+                    long first = (long) r << REGION_SHIFT;
+                    long ints = Math.min(count - first, 1L << REGION_SHIFT);
+                    // The mapping stays valid after the channel is closed
+                    regions[r] = channel.map(FileChannel.MapMode.READ_ONLY, first * Integer.BYTES, ints * Integer.BYTES)
+                            .order(ByteOrder.LITTLE_ENDIAN)
+                            .asIntBuffer();
+                }
+            }
+        }
+
+        // Absolute read, safe to call from several threads at once
+        int get(long i) {
+            return regions[(int) (i >>> REGION_SHIFT)].get((int) (i & REGION_MASK));
+        }
+
+        // Is rating i a local minimum (no neighbour strictly below it)? Such an employee always gets 1.
+        boolean isValley(long i) {
+            int r = get(i);
+            return (i == 0 || get(i - 1) >= r) && (i == count - 1 || get(i + 1) >= r);
+        }
+
+        // Iterator over ratings [from, to] inclusive, so a segment can reuse the streaming solver
+        PrimitiveIterator.OfInt iterator(long from, long to) {
+            return new PrimitiveIterator.OfInt() {
+                long next = from;
+
+                @Override
+                public boolean hasNext() {
+                    return next <= to;
+                }
+
+                @Override
+                public int nextInt() {
+                    if (next > to) throw new NoSuchElementException();
+                    return get(next++);
+                }
+            };
+        }
+    }
+
+    public static long minRewards(Path file) throws IOException {
+        // Memory-mapped, split at local minima and summed on the common fork-join pool
+        return minRewards(file, ForkJoinPool.commonPool());
+    }
+
+    public static long minRewards(Path file, ForkJoinPool pool) throws IOException {
+        MappedRatings ratings = new MappedRatings(file);
+        if (ratings.count == 0) return 0;
+
+        // Aim for a few segments per worker so stealing can even out uneven runs
+        List<Long> bounds = segmentBounds(ratings, (long) pool.getParallelism() * 4);
+
+        // Segments share their boundary valley, which gets 1 reward but is counted by both sides
+        long shared = Math.max(0, bounds.size() - 2);
+        return pool.invoke(new SegmentTask(ratings, bounds, 0, bounds.size() - 1)) - shared;
+    }
+
+    // Splits [0, count) at local minima. Rewards between two valleys depend only on the ratings
+    // between them, so each [bounds[i], bounds[i+1]] can be solved on its own.
+    static List<Long> segmentBounds(MappedRatings ratings, long segments) {
+        List<Long> bounds = new ArrayList<>();
+        long last = ratings.count - 1;
+        bounds.add(0L);
+
+        long step = Math.max(1, ratings.count / Math.max(1, segments));
+        for (long target = step; target < last; target += step) {
+            // Never go back over ground an earlier segment already covers
+            long i = Math.max(target, bounds.get(bounds.size() - 1) + 1);
+
+            // Walk forward to the next valley
+            while (i < last && !ratings.isValley(i)) {
+                i++;
+            }
+            if (i >= last) break;
+            bounds.add(i);
+            target = i; // Next target is measured from where this segment really ended
+        }
+
+        if (last > 0) bounds.add(last);
+        return bounds;
+    }
+
+    // Sums segments bounds[lo]..bounds[hi] by splitting the list of segments in half
+    static class SegmentTask extends RecursiveTask<Long> {
+        final MappedRatings ratings;
+        final List<Long> bounds;
+        final int lo, hi; // Segment boundary indices, hi - lo segments
+
+        SegmentTask(MappedRatings ratings, List<Long> bounds, int lo, int hi) {
+            this.ratings = ratings;
+            this.bounds = bounds;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected Long compute() {
+            // A single boundary (one-rating file) is just that one employee
+            if (hi <= lo) return 1L;
+
+            // One segment: run the streaming solver over it directly
+            if (hi - lo == 1) {
+                return minRewards(ratings.iterator(bounds.get(lo), bounds.get(hi)));
+            }
+
+            // Fork the left half, solve the right half here
+            int mid = (lo + hi) >>> 1;
+            SegmentTask left = new SegmentTask(ratings, bounds, lo, mid);
+            left.fork();
+            long right = new SegmentTask(ratings, bounds, mid, hi).compute();
+            return left.join() + right;
+        }
+    }
+
+    // Writes ratings as little-endian ints, the format the mapped reader expects
+    static void writeRatings(Path file, int[] ratings) throws IOException {
+        java.nio.ByteBuffer buf = java.nio.ByteBuffer.allocate(ratings.length * Integer.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buf.asIntBuffer().put(ratings);
+        Files.write(file, buf.array());
+    }
+
+    // Times the mapped solver at 1, 2, 4, ... workers on a generated file (run with: bench [count])
+    static void benchmark(int count) throws IOException {
+        Random rand = new Random(7);
+        int[] ratings = new int[count];
+        for (int i = 0; i < count; i++) {
+            ratings[i] = rand.nextInt(1000);
+        }
+        Path file = Files.createTempFile("ratings", ".bin");
+        try {
+            writeRatings(file, ratings);
+            long expected = minRewards(IntStream.of(ratings));
+
+            System.out.println("ratings=" + count + ", expected total=" + expected);
+            System.out.println("workers  time(ms)  speedup");
+            double baseline = 0;
+            int cores = Runtime.getRuntime().availableProcessors();
+            for (int workers = 1; workers <= cores; workers = workers == cores ? cores + 1 : Math.min(cores, workers * 2)) {
+                ForkJoinPool pool = new ForkJoinPool(workers);
+                try {
+                    minRewards(file, pool); // Warm-up run
+
+                    long start = System.nanoTime();
+                    long total = minRewards(file, pool);
+                    double millis = (System.nanoTime() - start) / 1e6;
+
+                    if (total != expected) {
+                        throw new IllegalStateException("Mapped total " + total + " != sequential " + expected);
+                    }
+                    if (workers == 1) baseline = millis;
+                    System.out.printf("%-8d %-9.1f %.2fx%n", workers, millis, baseline / millis);
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        // Benchmark mode: scaling of the mapped solver across worker counts
+        if (args.length > 0 && args[0].equals("bench")) {
+            benchmark(args.length > 1 ? Integer.parseInt(args[1]) : 50_000_000);
+            return;
+        }
+
         // Test case 1: ratings = [1, 0, 2]
         int[] ratings1 = {1, 0, 2};
         // Print the minimum rewards for this case
@@ -42,5 +354,22 @@ public class MinRewards {
         int[] ratings2 = {1, 2, 2};
         // Print the minimum rewards for this case
         System.out.println("ratings=[1,2,2]: " + minRewards(ratings2));
+
+        // Test case 3: ratings = [1, 3, 4, 5, 2] streamed instead of materialised
+        // Print the minimum rewards for this case, expecting 11
+        System.out.println("streamed ratings=[1,3,4,5,2]: " + minRewards(IntStream.of(1, 3, 4, 5, 2)));
+
+        // Test case 4: the same ratings written to a binary file and solved memory-mapped
+        Path file = Files.createTempFile("ratings", ".bin");
+        writeRatings(file, new int[]{1, 3, 4, 5, 2});
+        // Print the minimum rewards for this case, expecting 11
+        System.out.println("mapped ratings=[1,3,4,5,2]: " + minRewards(file));
+        Files.delete(file);
+
+        // Test case 5: ratings = [1, 0, 2], then the middle rating changes to 3
+        IncrementalRewards live = new IncrementalRewards(ratings1);
+        live.updateRating(1, 3);
+        // Print the minimum rewards after the update, expecting 4
+        System.out.println("ratings=[1,0,2] -> [1,3,2]: " + live.total());
     }
 }
\ No newline at end of file
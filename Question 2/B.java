@@ -1,3 +1,7 @@
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 public class ClosestPoints {
     public static int[] findClosestPair(int[] x_coords, int[] y_coords) {
         // Initialize variables to store the smallest distance found (set to infinity initially)
@@ -38,7 +42,482 @@ public class ClosestPoints {
         return result;
     }
 
+    // O(n log n) version of findClosestPair with the same answer, including tie-breaking.
+    // Rotating by 45 degrees (u = x + y, v = x - y) turns Manhattan distance into
+    // Chebyshev distance max(|du|, |dv|), which divide and conquer handles like the Euclidean case.
+    public static int[] findClosestPairFast(int[] x_coords, int[] y_coords) {
+        int n = x_coords.length;
+
+        // Fewer than two points: same answer the brute force gives
+        if (n < 2) return new int[2];
+
+        // Rotated coordinates, in long so x + y can't overflow
+        long[] u = new long[n];
+        long[] v = new long[n];
+        for (int i = 0; i < n; i++) {
+            u[i] = (long) x_coords[i] + y_coords[i];
+            v[i] = (long) x_coords[i] - y_coords[i];
+        }
+
+        // Step 1: the minimum distance itself, by divide and conquer over points sorted by u
+        int[] order = sortedIndices(u, v);
+        long best = closestDistance(order, new int[n], u, v, 0, n);
+
+        // Step 2: the lexicographically smallest (i, j) at that distance
+        return best == 0 ? firstDuplicatePair(u, v) : firstPairAtDistance(u, v, best);
+    }
+
+    // Chebyshev distance between points a and b in rotated coordinates (= their Manhattan distance)
+    private static long chebyshev(long[] u, long[] v, int a, int b) {
+        return Math.max(Math.abs(u[a] - u[b]), Math.abs(v[a] - v[b]));
+    }
+
+    // Closest distance among order[lo..hi), which must be sorted by u on entry.
+    // On return order[lo..hi) is re-sorted by v, which the caller's strip scan relies on.
+    private static long closestDistance(int[] order, int[] buf, long[] u, long[] v, int lo, int hi) {
+        // Small ranges: check every pair, then insertion sort by v
+        if (hi - lo <= 3) {
+            long best = Long.MAX_VALUE;
+            for (int a = lo; a < hi; a++) {
+                for (int b = a + 1; b < hi; b++) {
+                    best = Math.min(best, chebyshev(u, v, order[a], order[b]));
+                }
+            }
+            for (int a = lo + 1; a < hi; a++) {
+                int p = order[a];
+                int b = a - 1;
+                while (b >= lo && v[order[b]] > v[p]) {
+                    order[b + 1] = order[b];
+                    b--;
+                }
+                order[b + 1] = p;
+            }
+            return best;
+        }
+
+        // Split at the middle u, solve both halves
+        int mid = (lo + hi) >>> 1;
+        long midU = u[order[mid]];
+        long best = Math.min(closestDistance(order, buf, u, v, lo, mid), closestDistance(order, buf, u, v, mid, hi));
+
+        // Merge the two v-sorted halves back together
+        int a = lo, b = mid, out = lo;
+        while (a < mid || b < hi) {
+            buf[out++] = b >= hi || (a < mid && v[order[a]] <= v[order[b]]) ? order[a++] : order[b++];
+        }
+        System.arraycopy(buf, lo, order, lo, hi - lo);
+
+        // Only points within best of the split line can beat best across it
+        int strip = 0;
+        for (int k = lo; k < hi; k++) {
+            if (Math.abs(u[order[k]] - midU) < best) {
+                buf[strip++] = order[k];
+            }
+        }
+
+        // Walking the strip in v order, only a handful of following points can be closer than best
+        for (int s = 0; s < strip; s++) {
+            for (int t = s + 1; t < strip && v[buf[t]] - v[buf[s]] < best; t++) {
+                best = Math.min(best, chebyshev(u, v, buf[s], buf[t]));
+            }
+        }
+        return best;
+    }
+
+    // Lexicographically smallest pair of identical points (the minimum distance is 0)
+    private static int[] firstDuplicatePair(long[] u, long[] v) {
+        // Stable sort by (u, v) keeps identical points grouped in index order
+        int[] order = sortedIndices(u, v);
+        int[] result = {Integer.MAX_VALUE, Integer.MAX_VALUE};
+        for (int k = 0; k + 1 < order.length; k++) {
+            int p = order[k];
+            int q = order[k + 1];
+            boolean startsGroup = k == 0 || u[order[k - 1]] != u[p] || v[order[k - 1]] != v[p];
+            // The first two indices of a group are its best pair
+            if (startsGroup && u[p] == u[q] && v[p] == v[q] && p < result[0]) {
+                result[0] = p;
+                result[1] = q;
+            }
+        }
+        return result;
+    }
+
+    // Lexicographically smallest (i, j) whose distance is best, the global minimum.
+    // With cells of side best, no cell can hold two points (they'd be closer than best),
+    // so each i only has to look at the 3x3 block of cells around it.
+    private static int[] firstPairAtDistance(long[] u, long[] v, long best) {
+        int n = u.length;
+        long[] cellU = new long[n];
+        long[] cellV = new long[n];
+        for (int i = 0; i < n; i++) {
+            cellU[i] = Math.floorDiv(u[i], best);
+            cellV[i] = Math.floorDiv(v[i], best);
+        }
+        int[] order = sortedIndices(cellU, cellV);
+
+        // First i (in index order) with any partner at distance best wins, paired with its smallest j
+        for (int i = 0; i < n; i++) {
+            int bestJ = Integer.MAX_VALUE;
+            for (long du = -1; du <= 1; du++) {
+                for (long dv = -1; dv <= 1; dv++) {
+                    int k = lowerBound(order, cellU, cellV, cellU[i] + du, cellV[i] + dv);
+                    for (; k < n && cellU[order[k]] == cellU[i] + du && cellV[order[k]] == cellV[i] + dv; k++) {
+                        int j = order[k];
+                        if (j > i && j < bestJ && chebyshev(u, v, i, j) == best) {
+                            bestJ = j;
+                        }
+                    }
+                }
+            }
+            if (bestJ != Integer.MAX_VALUE) {
+                return new int[]{i, bestJ};
+            }
+        }
+        return new int[2]; // Unreachable: some pair always sits at the minimum distance
+    }
+
+    // First position in order whose (primary, secondary) key is >= (a, b)
+    private static int lowerBound(int[] order, long[] primary, long[] secondary, long a, long b) {
+        int lo = 0, hi = order.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int p = order[mid];
+            if (primary[p] < a || (primary[p] == a && secondary[p] < b)) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // Indices 0..n-1 stably sorted by (primary, secondary) - bottom-up merge sort on int arrays
+    static int[] sortedIndices(long[] primary, long[] secondary) {
+        int n = primary.length;
+        int[] order = new int[n];
+        int[] tmp = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        for (int width = 1; width < n; width *= 2) {
+            for (int lo = 0; lo < n - width; lo += 2 * width) {
+                int mid = lo + width;
+                int hi = Math.min(lo + 2 * width, n);
+                int a = lo, b = mid, out = lo;
+                while (a < mid || b < hi) {
+                    boolean takeLeft = b >= hi || (a < mid && (primary[order[a]] < primary[order[b]]
+                            || (primary[order[a]] == primary[order[b]] && secondary[order[a]] <= secondary[order[b]])));
+                    tmp[out++] = takeLeft ? order[a++] : order[b++];
+                }
+                System.arraycopy(tmp, lo, order, lo, hi - lo);
+            }
+        }
+        return order;
+    }
+
+    // Same answer as findClosestPair for small sets, but visits each unordered pair once.
+    // Scanning i then j upwards, the first pair to reach the minimum is the lexicographically
+    // smallest, so a strict < is the only comparison needed - no tie-break branch per pair.
+    public static int[] findClosestPairTriangle(int[] x_coords, int[] y_coords) {
+        int n = x_coords.length;
+        int minDistance = Integer.MAX_VALUE;
+        int[] result = new int[2];
+
+        for (int i = 0; i < n - 1; i++) {
+            int xi = x_coords[i];
+            int yi = y_coords[i];
+
+            // Branch-free min over the rest of the row, a plain reduction the JIT can vectorise
+            int rowMin = Integer.MAX_VALUE;
+            for (int j = i + 1; j < n; j++) {
+                rowMin = Math.min(rowMin, Math.abs(xi - x_coords[j]) + Math.abs(yi - y_coords[j]));
+            }
+
+            // Only rows that actually improve need the second scan to find which j it was
+            if (rowMin < minDistance) {
+                minDistance = rowMin;
+                result[0] = i;
+                for (int j = i + 1; j < n; j++) {
+                    if (Math.abs(xi - x_coords[j]) + Math.abs(yi - y_coords[j]) == rowMin) {
+                        result[1] = j;
+                        break;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    // Closest pair for many independent point sets at once, spread over the work-stealing common pool
+    public static int[][] findClosestPairs(int[][] xs, int[][] ys) {
+        int[][] results = new int[xs.length][];
+        ForkJoinPool.commonPool().invoke(new BatchTask(xs, ys, results, 0, xs.length));
+        return results;
+    }
+
+    // Splits the batch in half until each task has a few point sets left
+    static class BatchTask extends RecursiveAction {
+        static final int SETS_PER_TASK = 4;
+
+        final int[][] xs, ys, results;
+        final int lo, hi;
+
+        BatchTask(int[][] xs, int[][] ys, int[][] results, int lo, int hi) {
+            this.xs = xs;
+            this.ys = ys;
+            this.results = results;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= SETS_PER_TASK) {
+                for (int b = lo; b < hi; b++) {
+                    results[b] = findClosestPairTriangle(xs[b], ys[b]);
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new BatchTask(xs, ys, results, lo, mid), new BatchTask(xs, ys, results, mid, hi));
+        }
+    }
+
+    // Times the original method against the batched one on random sets (run with: bench [sets] [points])
+    static void benchmark(int sets, int points) {
+        Random rand = new Random(11);
+        int[][] xs = new int[sets][points];
+        int[][] ys = new int[sets][points];
+        for (int b = 0; b < sets; b++) {
+            for (int i = 0; i < points; i++) {
+                xs[b][i] = rand.nextInt(1_000_000);
+                ys[b][i] = rand.nextInt(1_000_000);
+            }
+        }
+
+        // Warm both paths up so the JIT has compiled (and vectorised) the loops
+        for (int round = 0; round < 3; round++) {
+            findClosestPair(xs[round % sets], ys[round % sets]);
+            findClosestPairs(xs, ys);
+        }
+
+        long start = System.nanoTime();
+        int[][] expected = new int[sets][];
+        for (int b = 0; b < sets; b++) {
+            expected[b] = findClosestPair(xs[b], ys[b]);
+        }
+        double originalMs = (System.nanoTime() - start) / 1e6;
+
+        start = System.nanoTime();
+        int[][] batched = findClosestPairs(xs, ys);
+        double batchedMs = (System.nanoTime() - start) / 1e6;
+
+        if (!java.util.Arrays.deepEquals(expected, batched)) {
+            throw new IllegalStateException("Batched results differ from findClosestPair");
+        }
+        System.out.println(sets + " sets x " + points + " points, " + ForkJoinPool.getCommonPoolParallelism() + " workers");
+        System.out.printf("findClosestPair (one by one): %.1f ms%n", originalMs);
+        System.out.printf("findClosestPairs (batched):   %.1f ms (%.2fx)%n", batchedMs, originalMs / batchedMs);
+    }
+
+    // Receives each pair found by SpatialIndex.pairsWithin, so results never need boxing
+    interface PairVisitor {
+        void visit(int i, int j, long distance);
+    }
+
+    // Reusable k-d tree over the two coordinate arrays, built once and queried many times.
+    // The tree is implicit: each range [lo, hi) is split at its middle slot, alternating x and y,
+    // so the whole structure is three primitive arrays and queries allocate nothing.
+    // Queries keep their running best in fields, so one index shouldn't be queried from two threads at once.
+    static class SpatialIndex {
+        final int[] ids;  // Original point index stored in each tree slot
+        final long[] xs;  // x of the point in each slot
+        final long[] ys;  // y of the point in each slot
+        final int[] slots; // Inverse of ids: the slot holding each original point
+
+        // Running best for the nearest-neighbour search in progress
+        private long bestDist;
+        private int bestIndex;
+
+        // Output state for the radius search in progress
+        private int[] radiusOut;
+        private int radiusCount;
+
+        SpatialIndex(int[] x_coords, int[] y_coords) {
+            int n = x_coords.length;
+            ids = new int[n];
+            xs = new long[n];
+            ys = new long[n];
+            for (int i = 0; i < n; i++) {
+                ids[i] = i;
+                xs[i] = x_coords[i];
+                ys[i] = y_coords[i];
+            }
+            build(0, n, 0);
+
+            slots = new int[n];
+            for (int slot = 0; slot < n; slot++) {
+                slots[ids[slot]] = slot;
+            }
+        }
+
+        // Places the median (by x on even depths, y on odd) at the middle slot, then recurses
+        private void build(int lo, int hi, int depth) {
+            if (hi - lo <= 1) return;
+            int mid = (lo + hi) >>> 1;
+            select(lo, hi, mid, depth & 1);
+            build(lo, mid, depth + 1);
+            build(mid + 1, hi, depth + 1);
+        }
+
+        // Quickselect: afterwards slot k holds the k-th smallest key, smaller-or-equal keys to its left
+        private void select(int lo, int hi, int k, int axis) {
+            hi--; // Inclusive from here on
+            while (lo < hi) {
+                long pivot = key((lo + hi) >>> 1, axis);
+                int a = lo, b = hi;
+                while (a <= b) {
+                    while (key(a, axis) < pivot) a++;
+                    while (key(b, axis) > pivot) b--;
+                    if (a <= b) swap(a++, b--);
+                }
+                if (k <= b) hi = b;
+                else if (k >= a) lo = a;
+                else return;
+            }
+        }
+
+        private long key(int slot, int axis) {
+            return axis == 0 ? xs[slot] : ys[slot];
+        }
+
+        private void swap(int a, int b) {
+            int id = ids[a]; ids[a] = ids[b]; ids[b] = id;
+            long x = xs[a]; xs[a] = xs[b]; xs[b] = x;
+            long y = ys[a]; ys[a] = ys[b]; ys[b] = y;
+        }
+
+        // Nearest other point to point i (smallest index on ties), or -1 if there is none
+        int nearest(int i) {
+            bestDist = Long.MAX_VALUE;
+            bestIndex = -1;
+            long qx = xs[slotOf(i)], qy = ys[slotOf(i)];
+            nearest(0, ids.length, 0, qx, qy, i);
+            return bestIndex;
+        }
+
+        // Distance from point i to its nearest neighbour (valid right after nearest(i))
+        long lastNearestDistance() {
+            return bestDist;
+        }
+
+        private void nearest(int lo, int hi, int depth, long qx, long qy, int self) {
+            if (lo >= hi) return;
+            int mid = (lo + hi) >>> 1;
+
+            int id = ids[mid];
+            long d = Math.abs(xs[mid] - qx) + Math.abs(ys[mid] - qy);
+            if (id != self && (d < bestDist || (d == bestDist && id < bestIndex))) {
+                bestDist = d;
+                bestIndex = id;
+            }
+
+            // Search the side the query falls on first, the other only if it could still hold a match
+            long diff = (depth & 1) == 0 ? qx - xs[mid] : qy - ys[mid];
+            if (diff < 0) {
+                nearest(lo, mid, depth + 1, qx, qy, self);
+                if (-diff <= bestDist) nearest(mid + 1, hi, depth + 1, qx, qy, self);
+            } else {
+                nearest(mid + 1, hi, depth + 1, qx, qy, self);
+                if (diff <= bestDist) nearest(lo, mid, depth + 1, qx, qy, self);
+            }
+        }
+
+        // Writes indices of all other points within distance d of point i into out (as many as fit).
+        // Returns how many there are in total, so the caller can retry with a bigger buffer.
+        int radius(int i, long d, int[] out) {
+            radiusOut = out;
+            radiusCount = 0;
+            long qx = xs[slotOf(i)], qy = ys[slotOf(i)];
+            radius(0, ids.length, 0, qx, qy, d, i);
+            radiusOut = null;
+            return radiusCount;
+        }
+
+        private void radius(int lo, int hi, int depth, long qx, long qy, long d, int self) {
+            if (lo >= hi) return;
+            int mid = (lo + hi) >>> 1;
+
+            int id = ids[mid];
+            if (id != self && Math.abs(xs[mid] - qx) + Math.abs(ys[mid] - qy) <= d) {
+                if (radiusCount < radiusOut.length) radiusOut[radiusCount] = id;
+                radiusCount++;
+            }
+
+            // Prune whichever side lies entirely further than d along the split axis
+            long diff = (depth & 1) == 0 ? qx - xs[mid] : qy - ys[mid];
+            if (-diff <= d) radius(mid + 1, hi, depth + 1, qx, qy, d, self);
+            if (diff <= d) radius(lo, mid, depth + 1, qx, qy, d, self);
+        }
+
+        // Reports every pair (i < j) within distance d to the visitor, returns how many there were
+        long pairsWithin(long d, PairVisitor visitor) {
+            long pairs = 0;
+            for (int slot = 0; slot < ids.length; slot++) {
+                pairs += pairsFrom(0, ids.length, 0, ids[slot], xs[slot], ys[slot], d, visitor);
+            }
+            return pairs;
+        }
+
+        private long pairsFrom(int lo, int hi, int depth, int self, long qx, long qy, long d, PairVisitor visitor) {
+            if (lo >= hi) return 0;
+            int mid = (lo + hi) >>> 1;
+            long pairs = 0;
+
+            // Only report each pair once, from its smaller index
+            int id = ids[mid];
+            long dist = Math.abs(xs[mid] - qx) + Math.abs(ys[mid] - qy);
+            if (id > self && dist <= d) {
+                visitor.visit(self, id, dist);
+                pairs++;
+            }
+
+            long diff = (depth & 1) == 0 ? qx - xs[mid] : qy - ys[mid];
+            if (-diff <= d) pairs += pairsFrom(mid + 1, hi, depth + 1, self, qx, qy, d, visitor);
+            if (diff <= d) pairs += pairsFrom(lo, mid, depth + 1, self, qx, qy, d, visitor);
+            return pairs;
+        }
+
+        // Global closest pair with findClosestPair's tie-breaking: one nearest-neighbour query per point.
+        // The lexicographically smallest best pair (a, b) is exactly what point a's query returns.
+        int[] closestPair() {
+            int[] result = new int[2];
+            if (ids.length < 2) return result;
+
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < ids.length; i++) {
+                int j = nearest(i);
+                long d = bestDist;
+                int a = Math.min(i, j), b = Math.max(i, j);
+                if (d < best || (d == best && (a < result[0] || (a == result[0] && b < result[1])))) {
+                    best = d;
+                    result[0] = a;
+                    result[1] = b;
+                }
+            }
+            return result;
+        }
+
+        // Tree slot holding point i
+        private int slotOf(int i) {
+            return slots[i];
+        }
+    }
+
     public static void main(String[] args) {
+        // Benchmark mode: original brute force vs the batched upper-triangle version
+        if (args.length > 0 && args[0].equals("bench")) {
+            benchmark(args.length > 1 ? Integer.parseInt(args[1]) : 64, args.length > 2 ? Integer.parseInt(args[2]) : 4096);
+            return;
+        }
+
         // Test case: x_coords = [1, 2, 3, 2, 4], y_coords = [2, 3, 1, 2, 3]
         int[] x_coords = {1, 2, 3, 2, 4};
         int[] y_coords = {2, 3, 1, 2, 3};
@@ -47,5 +526,48 @@ public class ClosestPoints {
         // Print the result
         System.out.print("x_coords=[1,2,3,2,4], y_coords=[2,3,1,2,3]: [");
         System.out.println(result[0] + ", " + result[1] + "]");
+
+        // Same test case through the O(n log n) version
+        int[] fast = findClosestPairFast(x_coords, y_coords);
+        System.out.print("fast: [");
+        System.out.println(fast[0] + ", " + fast[1] + "]");
+
+        // Randomized check: the fast version must agree with the brute force, ties included
+        Random rand = new Random(2024);
+        boolean allMatch = true;
+        for (int round = 0; round < 500 && allMatch; round++) {
+            int n = 2 + rand.nextInt(60);
+            int range = 1 + rand.nextInt(round % 2 == 0 ? 10 : 1000); // Small ranges force ties and duplicates
+            int[] xs = new int[n];
+            int[] ys = new int[n];
+            for (int i = 0; i < n; i++) {
+                xs[i] = rand.nextInt(range) - range / 2;
+                ys[i] = rand.nextInt(range) - range / 2;
+            }
+            int[] expected = findClosestPair(xs, ys);
+            allMatch = java.util.Arrays.equals(expected, findClosestPairFast(xs, ys))
+                    && java.util.Arrays.equals(expected, findClosestPairTriangle(xs, ys));
+        }
+        // Print whether every random case matched, expecting true
+        System.out.println("randomized check vs brute force: " + allMatch);
+
+        // Spatial index over the same test case, built once for repeated queries
+        SpatialIndex index = new SpatialIndex(x_coords, y_coords);
+        // Print the nearest point to index 0, expecting 3
+        System.out.println("nearest to 0: " + index.nearest(0));
+        int[] within = new int[x_coords.length];
+        int found = index.radius(3, 1, within);
+        // Print how many points are within distance 1 of index 3, expecting 2 (indices 0 and 1)
+        System.out.println("within 1 of 3: " + found);
+        // Print the number of pairs within distance 2, expecting 5
+        System.out.println("pairs within 2: " + index.pairsWithin(2, (i, j, d) -> { }));
+        int[] indexed = index.closestPair();
+        // Print the closest pair from the index, expecting [0, 3]
+        System.out.println("index closest pair: [" + indexed[0] + ", " + indexed[1] + "]");
+
+        // Batched: the example set and a copy with the last two points swapped
+        int[][] batch = findClosestPairs(new int[][]{x_coords, {1, 2, 3, 4, 2}}, new int[][]{y_coords, {2, 3, 1, 3, 2}});
+        // Print both batched results, expecting [0, 3] and [0, 4]
+        System.out.println("batched: [" + batch[0][0] + ", " + batch[0][1] + "] [" + batch[1][0] + ", " + batch[1][1] + "]");
     }
 }
\ No newline at end of file
@@ -1,89 +1,229 @@
 import java.util.*;
 
 public class MinNetworkCost {
-    // Union-Find data structure to track connected components
-    static class UnionFind {
-        int[] parent, rank;
-
-        // Initialize each device as its own parent with rank 0
-        UnionFind(int n) {
-            parent = new int[n];
-            rank = new int[n];
-            for (int i = 0; i < n; i++) {
-                parent[i] = i;
-            }
+    // All edges in three parallel primitive arrays - no int[] per edge, nothing for the GC to chase
+    static class EdgeList {
+        int[] src, dst, cost;
+        int size;
+
+        EdgeList(int capacity) {
+            src = new int[Math.max(1, capacity)];
+            dst = new int[Math.max(1, capacity)];
+            cost = new int[Math.max(1, capacity)];
         }
 
-        // Find the root of a device, with path compression
-        int find(int x) {
-            if (parent[x] != x) {
-                parent[x] = find(parent[x]);
+        // Append an edge, doubling the arrays when full
+        void add(int u, int v, int c) {
+            if (size == src.length) {
+                int grown = size * 2;
+                src = Arrays.copyOf(src, grown);
+                dst = Arrays.copyOf(dst, grown);
+                cost = Arrays.copyOf(cost, grown);
             }
-            return parent[x];
+            src[size] = u;
+            dst[size] = v;
+            cost[size] = c;
+            size++;
         }
+    }
 
-        // Union two devices, using rank to keep tree balanced
-        void union(int x, int y) {
-            int rootX = find(x);
-            int rootY = find(y);
-            if (rootX != rootY) {
-                if (rank[rootX] < rank[rootY]) {
-                    parent[rootX] = rootY;
-                } else if (rank[rootX] > rank[rootY]) {
-                    parent[rootY] = rootX;
-                } else {
-                    parent[rootY] = rootX;
-                    rank[rootX]++;
-                }
-            }
+    // Module costs become edges from each device to a virtual power source, node n,
+    // followed by the connections (converted to 0-based)
+    static EdgeList buildEdges(int n, int[] modules, int[][] connections) {
+        EdgeList edges = new EdgeList(n + connections.length);
+        for (int i = 0; i < n; i++) {
+            edges.add(i, n, modules[i]); // Installing a module = wiring device i to the source
         }
+        for (int[] conn : connections) {
+            edges.add(conn[0] - 1, conn[1] - 1, conn[2]); // Convert to 0-based indexing
+        }
+        return edges;
     }
 
     public static int minCostToConnect(int n, int[] modules, int[][] connections) {
-        // Create a list to hold all edges, including module costs as self-connections
-        List<int[]> edges = new ArrayList<>();
+        // Same algorithm on the primitive edge store, narrowed back to int for existing callers.
+        // Totals past the int range (e.g. 10^6 devices) throw ArithmeticException instead of
+        // wrapping: callers at that scale use the long overload.
+        return Math.toIntExact(minCostToConnect(n, buildEdges(n, modules, connections)));
+    }
 
-        // Add module costs as edges (like installing a module on device i connects it to itself)
-        for (int i = 0; i < n; i++) {
-            edges.add(new int[]{i, i, modules[i]});
+    public static long minCostToConnect(int n, EdgeList edges) {
+        // Spanning tree over the n devices plus the virtual source
+        return spanningTree(n + 1, edges, null);
+    }
+
+    // Minimum spanning tree over nodes 0..nodes-1 via the shared engine (Shared/MstEngine.java):
+    // radix-sorted Kruskal for small inputs, parallel Boruvka for big ones.
+    // Marks chosen edges in inTree when one is given.
+    // This program no longer runs on its own; run it with the engine on the class path:
+    //   javac -d out Shared/MstEngine.java && java -cp out "Question 3/A.java"
+    static long spanningTree(int nodes, EdgeList edges, boolean[] inTree) {
+        return MstEngine.minimumSpanningForest(nodes, edges.src, edges.dst, edges.cost, edges.size, inTree);
+    }
+
+    // Keeps the minimum cost current as connections are added and module prices change.
+    // Each edit swaps at most one edge of the current spanning tree (cycle replacement)
+    // instead of re-running Kruskal. Devices are numbered from 1, as in connections.
+    static class IncrementalNetwork {
+        final int n;           // Number of devices; node n is the virtual source
+        final EdgeList edges;  // Every edge ever seen, tree or not
+        boolean[] inTree;      // Whether edge e is in the current spanning tree
+        final int[] moduleEdge; // Edge id of device i's module edge
+        long totalCost;
+
+        // Current tree as per-node lists of edge ids
+        final int[][] treeAdj;
+        final int[] treeDegree;
+
+        // Reusable BFS workspace over the tree
+        final int[] queue, parentEdge, seen;
+        int epoch;
+
+        IncrementalNetwork(int n, int[] modules, int[][] connections) {
+            this.n = n;
+            this.edges = buildEdges(n, modules, connections);
+            this.inTree = new boolean[edges.size];
+            this.totalCost = spanningTree(n + 1, edges, inTree);
+
+            // Module edge of device i is edge i, buildEdges adds them first
+            this.moduleEdge = new int[n];
+            for (int i = 0; i < n; i++) {
+                moduleEdge[i] = i;
+            }
+
+            this.treeAdj = new int[n + 1][2];
+            this.treeDegree = new int[n + 1];
+            for (int e = 0; e < edges.size; e++) {
+                if (inTree[e]) link(e);
+            }
+
+            this.queue = new int[n + 1];
+            this.parentEdge = new int[n + 1];
+            this.seen = new int[n + 1];
         }
 
-        // Add all connection edges from the connections array
-        for (int[] conn : connections) {
-            edges.add(new int[]{conn[0] - 1, conn[1] - 1, conn[2]}); // Convert to 0-based indexing
+        // Current minimum total cost
+        long totalCost() {
+            return totalCost;
         }
 
-        // Sort edges by cost to process cheapest first
-        edges.sort((a, b) -> a[2] - b[2]);
+        // A new connection between devices a and b
+        void addConnection(int a, int b, int cost) {
+            edges.add(a - 1, b - 1, cost);
+            if (inTree.length < edges.src.length) {
+                inTree = Arrays.copyOf(inTree, edges.src.length);
+            }
+            offer(edges.size - 1);
+        }
 
-        // Initialize Union-Find for n devices
-        UnionFind uf = new UnionFind(n);
+        // New module price for device i
+        void changeModuleCost(int i, int cost) {
+            int e = moduleEdge[i - 1];
+            int old = edges.cost[e];
+            edges.cost[e] = cost;
 
-        // Track total cost and number of components connected
-        int totalCost = 0;
-        int components = n; // Start with n isolated devices
+            if (inTree[e]) {
+                totalCost += cost - old;
+                // Got pricier: some other edge across the same cut may now be cheaper
+                if (cost > old) replaceTreeEdge(e);
+            } else if (cost < old) {
+                // Got cheaper: it may now beat the priciest edge on the cycle it closes
+                offer(e);
+            }
+        }
 
-        // Process each edge in sorted order
-        for (int[] edge : edges) {
-            int u = edge[0];
-            int v = edge[1];
-            int cost = edge[2];
+        // Non-tree edge e closes a cycle with the tree; swap out the cycle's priciest edge if e is cheaper
+        private void offer(int e) {
+            int u = edges.src[e], v = edges.dst[e];
+            if (u == v) return; // A self-loop never helps
 
-            // If u and v are not yet connected, use this edge/module
-            if (uf.find(u) != uf.find(v)) {
-                uf.union(u, v);
-                totalCost += cost;
-                components--; // One less isolated component
+            // Walk the tree path v -> u using BFS parents from u, tracking the most expensive edge
+            bfs(u);
+            int worst = -1;
+            for (int at = v; at != u; ) {
+                int pe = parentEdge[at];
+                if (worst == -1 || edges.cost[pe] > edges.cost[worst]) worst = pe;
+                at = edges.src[pe] == at ? edges.dst[pe] : edges.src[pe];
             }
-            // Special case: module edge (u == v), always use if it connects an isolated device
-            else if (u == v && components > 1) {
-                totalCost += cost;
-                components--; // Module connects this device to the network
+
+            if (edges.cost[e] < edges.cost[worst]) {
+                unlink(worst);
+                totalCost -= edges.cost[worst];
+                link(e);
+                totalCost += edges.cost[e];
             }
         }
 
-        // Return the total minimum cost
-        return totalCost;
+        // Tree edge e got more expensive: cut it and reconnect with the cheapest edge across the cut
+        private void replaceTreeEdge(int e) {
+            unlink(e);
+            totalCost -= edges.cost[e];
+
+            // Everything reachable from one end without e is one side of the cut
+            bfs(edges.src[e]);
+            int side = epoch;
+
+            // Cheapest edge with exactly one end on that side (e itself included, and kept on ties)
+            int best = e;
+            for (int f = 0; f < edges.size; f++) {
+                boolean crosses = (seen[edges.src[f]] == side) != (seen[edges.dst[f]] == side);
+                if (crosses && edges.cost[f] < edges.cost[best]) best = f;
+            }
+
+            link(best);
+            totalCost += edges.cost[best];
+        }
+
+        // BFS over the current tree from start, recording parent edges; stamps visited nodes with epoch
+        private void bfs(int start) {
+            epoch++;
+            int head = 0, tail = 0;
+            queue[tail++] = start;
+            seen[start] = epoch;
+            parentEdge[start] = -1;
+            while (head < tail) {
+                int node = queue[head++];
+                for (int k = 0; k < treeDegree[node]; k++) {
+                    int f = treeAdj[node][k];
+                    int next = edges.src[f] == node ? edges.dst[f] : edges.src[f];
+                    if (seen[next] != epoch) {
+                        seen[next] = epoch;
+                        parentEdge[next] = f;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+        }
+
+        // Add edge e to the tree
+        private void link(int e) {
+            inTree[e] = true;
+            addAdj(edges.src[e], e);
+            addAdj(edges.dst[e], e);
+        }
+
+        // Remove edge e from the tree
+        private void unlink(int e) {
+            inTree[e] = false;
+            removeAdj(edges.src[e], e);
+            removeAdj(edges.dst[e], e);
+        }
+
+        private void addAdj(int node, int e) {
+            if (treeDegree[node] == treeAdj[node].length) {
+                treeAdj[node] = Arrays.copyOf(treeAdj[node], treeDegree[node] * 2);
+            }
+            treeAdj[node][treeDegree[node]++] = e;
+        }
+
+        private void removeAdj(int node, int e) {
+            for (int k = 0; k < treeDegree[node]; k++) {
+                if (treeAdj[node][k] == e) {
+                    treeAdj[node][k] = treeAdj[node][--treeDegree[node]]; // Swap-remove
+                    return;
+                }
+            }
+        }
     }
 
     public static void main(String[] args) {
@@ -94,5 +234,14 @@ public class MinNetworkCost {
         // Calculate and print the minimum cost
         int result = minCostToConnect(n, modules, connections);
         System.out.println("n=3, modules=[1,2,2], connections=[[1,2,1],[2,3,1]]: " + result);
+
+        // Incremental: start from the same network, then edit it
+        IncrementalNetwork network = new IncrementalNetwork(n, modules, connections);
+        network.addConnection(1, 3, 0);
+        // Print the cost after adding a free 1-3 connection, expecting 2
+        System.out.println("after connecting 1-3 for 0: " + network.totalCost());
+        network.changeModuleCost(1, 5);
+        // Print the cost after device 1's module goes up to 5, expecting 3 (device 2's module takes over)
+        System.out.println("after module 1 costs 5: " + network.totalCost());
     }
 }
\ No newline at end of file
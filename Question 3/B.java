@@ -1,17 +1,317 @@
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
 
 public class TetrisGame {
-    // Block class to represent a Tetris piece
+    // Block class to represent a Tetris piece (one instance is reused for every falling piece)
     static class Block {
-        int[][] shape; // 2D array for block shape (1 = filled, 0 = empty)
+        int[][] shape; // 2D array for block shape (1 = filled, 0 = empty) - shared table, never written
         int x, y;      // Position on the board (top-left corner)
         String color;  // Color for display (simplified as a string)
+        PieceMasks masks; // The same shape as row bitmasks, all four rotations (bitboard mode)
+        int rotation;     // Current rotation index into masks and the piece's shapes
+        Tetromino piece;  // Which of the seven pieces this is
 
-        Block(int[][] shape, String color) {
-            this.shape = shape;
+        Block(Tetromino piece) {
+            reset(piece);
+        }
+
+        // Turn this block into a freshly spawned piece, without allocating
+        void reset(Tetromino piece) {
+            this.piece = piece;
             this.x = 0;       // Start at top
             this.y = 0;       // Start at left
+            this.color = piece.color;
+            this.masks = piece.masks;
+            setRotation(0);
+        }
+
+        void setRotation(int rotation) {
+            this.rotation = rotation;
+            this.shape = piece.shapes[rotation];
+        }
+    }
+
+    // One of the seven tetrominoes with all four rotations worked out once. Instances are shared
+    // (flyweights): blocks only point at them, so spawning and rotating never build a new shape.
+    static class Tetromino {
+        final int id;          // Index into ALL
+        final String name;
+        final String color;
+        final int[][][] shapes; // shapes[r] = the piece rotated r times clockwise (array mode)
+        final PieceMasks masks; // The same rotations as row bitmasks (bitboard mode)
+
+        Tetromino(int id, String name, String color, int[][] shape) {
+            this.id = id;
+            this.name = name;
             this.color = color;
+            this.shapes = new int[4][][];
+            int[][] current = shape;
+            for (int r = 0; r < 4; r++) {
+                shapes[r] = current;
+                current = rotate(current);
+            }
+            this.masks = new PieceMasks(shape);
+        }
+
+        static final Tetromino[] ALL = {
+                new Tetromino(0, "I", "Cyan", new int[][]{{1, 1, 1, 1}}),
+                new Tetromino(1, "O", "Yellow", new int[][]{{1, 1}, {1, 1}}),
+                new Tetromino(2, "T", "Purple", new int[][]{{1, 1, 1}, {0, 1, 0}}),
+                new Tetromino(3, "S", "Green", new int[][]{{0, 1, 1}, {1, 1, 0}}),
+                new Tetromino(4, "Z", "Red", new int[][]{{1, 1, 0}, {0, 1, 1}}),
+                new Tetromino(5, "J", "Blue", new int[][]{{1, 0, 0}, {1, 1, 1}}),
+                new Tetromino(6, "L", "Orange", new int[][]{{1, 0}, {1, 0}, {1, 1}}),
+        };
+
+        // Bitmask tables of all seven, in id order (the piece set for the headless engine)
+        static PieceMasks[] allMasks() {
+            PieceMasks[] masks = new PieceMasks[ALL.length];
+            for (Tetromino t : ALL) {
+                masks[t.id] = t.masks;
+            }
+            return masks;
+        }
+    }
+
+    // 7-bag randomizer: the upcoming piece ids sit in a small int ring, and whenever fewer than a
+    // bag's worth are left a shuffled copy of all seven is appended. Every run of seven has each piece once.
+    static class PieceBag {
+        static final int BAG = 7;
+
+        int[] queue = new int[2 * BAG];     // Ring of upcoming ids
+        final int[] scratch = new int[BAG]; // Reused for shuffling a new bag
+        final Random rng;
+        int head, size;
+
+        PieceBag(Random rng) {
+            this.rng = rng;
+            refill();
+        }
+
+        // Next piece id, removed from the queue
+        int next() {
+            int id = queue[head];
+            head = (head + 1) % queue.length;
+            size--;
+            refill();
+            return id;
+        }
+
+        // Upcoming piece id, left in the queue
+        int peek() {
+            return queue[head];
+        }
+
+        // Put a piece back in front of the queue (used by undo)
+        void pushFront(int id) {
+            if (size == queue.length) {
+                // Several undos in a row: unroll the ring into a bigger one
+                int[] bigger = new int[queue.length * 2];
+                for (int i = 0; i < size; i++) {
+                    bigger[i] = queue[(head + i) % queue.length];
+                }
+                queue = bigger;
+                head = 0;
+            }
+            head = (head - 1 + queue.length) % queue.length;
+            queue[head] = id;
+            size++;
+        }
+
+        // Keep at least a full bag queued, so peek always has an answer
+        private void refill() {
+            if (size >= BAG) return;
+            for (int i = 0; i < BAG; i++) {
+                scratch[i] = i;
+            }
+            // Fisher-Yates shuffle
+            for (int i = BAG - 1; i > 0; i--) {
+                int j = rng.nextInt(i + 1);
+                int t = scratch[i]; scratch[i] = scratch[j]; scratch[j] = t;
+            }
+            for (int i = 0; i < BAG; i++) {
+                queue[(head + size++) % queue.length] = scratch[i];
+            }
+        }
+    }
+
+    // A shape precomputed as one bitmask per row for each of its 4 rotations (bit j = column j)
+    static class PieceMasks {
+        final int[][] rows;  // rows[r][i] = mask of row i in rotation r
+        final int[] widths;  // Width of each rotation
+
+        PieceMasks(int[][] shape) {
+            rows = new int[4][];
+            widths = new int[4];
+            int[][] current = shape;
+            for (int r = 0; r < 4; r++) {
+                rows[r] = new int[current.length];
+                widths[r] = current[0].length;
+                for (int i = 0; i < current.length; i++) {
+                    for (int j = 0; j < current[0].length; j++) {
+                        if (current[i][j] == 1) {
+                            rows[r][i] |= 1 << j;
+                        }
+                    }
+                }
+                current = rotate(current);
+            }
+        }
+    }
+
+    // The board as one int per row (bit j = column j filled), for bitboard mode (up to 31 columns)
+    static class BitBoard {
+        final int[] rows;
+        final int cols;
+        final int fullRow; // Mask with every column set
+
+        BitBoard(int rows, int cols) {
+            this.rows = new int[rows];
+            this.cols = cols;
+            this.fullRow = (1 << cols) - 1;
+        }
+
+        // Can the piece in the given rotation sit with its top-left corner at (x, y)?
+        // One shift-and-AND per piece row instead of a bounds check per cell.
+        boolean canPlace(PieceMasks piece, int rotation, int x, int y) {
+            int[] mask = piece.rows[rotation];
+            if (x < 0 || y < 0 || x + mask.length > rows.length || y + piece.widths[rotation] > cols) {
+                return false;
+            }
+            for (int i = 0; i < mask.length; i++) {
+                if ((rows[x + i] & (mask[i] << y)) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // OR the piece into the board
+        void place(PieceMasks piece, int rotation, int x, int y) {
+            int[] mask = piece.rows[rotation];
+            for (int i = 0; i < mask.length; i++) {
+                rows[x + i] |= mask[i] << y;
+            }
+        }
+
+        // Remove every full row, shifting the rows above down; returns how many were cleared
+        int clearFullRows() {
+            int cleared = 0;
+            for (int i = rows.length - 1; i >= 0; i--) {
+                if (rows[i] == fullRow) {
+                    // Shift everything above down by one in a single copy
+                    System.arraycopy(rows, 0, rows, 1, i);
+                    rows[0] = 0; // New empty row at top
+                    cleared++;
+                    i++; // Recheck this row after shifting
+                }
+            }
+            return cleared;
+        }
+
+        // Is cell (row, col) filled?
+        boolean get(int row, int col) {
+            return (rows[row] >>> col & 1) != 0;
+        }
+
+        // Copy out as the int[ROWS][COLS] layout the console view uses
+        int[][] toArray() {
+            int[][] copy = new int[rows.length][cols];
+            for (int i = 0; i < rows.length; i++) {
+                for (int j = 0; j < cols; j++) {
+                    copy[i][j] = get(i, j) ? 1 : 0;
+                }
+            }
+            return copy;
+        }
+    }
+
+    // Bounded undo history for the bitboard: one fixed-size int record per placement in a ring buffer.
+    // A record holds only the delta - the piece's row masks where they landed and which of those rows
+    // were cleared - so undo touches a few rows and memory stays at depth * STRIDE ints.
+    static class UndoLog {
+        // Record layout: x, height, clearedBits, action, pieceId, tag (2 ints), 4 placed row masks
+        static final int STRIDE = 11;
+
+        final int[] ring;
+        final int depth; // How many placements can be undone
+        int head;        // Slot the next record goes into
+        int size;        // Records currently held
+
+        UndoLog(int depth) {
+            this.depth = depth;
+            this.ring = new int[depth * STRIDE];
+        }
+
+        // Drops the piece into the board, logs the delta and clears full rows; returns rows cleared.
+        // pieceId and tag are kept for the caller (e.g. which piece it was and the spawner's state).
+        int placeAndRecord(BitBoard board, PieceMasks piece, int rotation, int x, int column, int pieceId, long tag) {
+            board.place(piece, rotation, x, column);
+
+            int[] mask = piece.rows[rotation];
+            int base = head * STRIDE;
+            int clearedBits = 0;
+            for (int i = 0; i < mask.length; i++) {
+                ring[base + 7 + i] = mask[i] << column;
+                // Only rows the piece touched can have just filled up
+                if (board.rows[x + i] == board.fullRow) clearedBits |= 1 << i;
+            }
+            ring[base] = x;
+            ring[base + 1] = mask.length;
+            ring[base + 2] = clearedBits;
+            ring[base + 3] = rotation * board.cols + column;
+            ring[base + 4] = pieceId;
+            ring[base + 5] = (int) (tag >>> 32);
+            ring[base + 6] = (int) tag;
+
+            // Oldest record is overwritten once the ring is full
+            head = (head + 1) % depth;
+            size = Math.min(size + 1, depth);
+
+            board.clearFullRows();
+            return Integer.bitCount(clearedBits);
+        }
+
+        // Reverts the newest placement; returns how many rows it had cleared, or -1 if there is nothing to undo
+        int undo(BitBoard board) {
+            if (size == 0) return -1;
+            head = (head - 1 + depth) % depth;
+            size--;
+
+            int base = head * STRIDE;
+            int x = ring[base];
+            int height = ring[base + 1];
+            int clearedBits = ring[base + 2];
+
+            // Put cleared rows back bottom-up: each one pushes the rows above it up by one
+            for (int i = height - 1; i >= 0; i--) {
+                if ((clearedBits & (1 << i)) != 0) {
+                    System.arraycopy(board.rows, 1, board.rows, 0, x + i);
+                    board.rows[x + i] = board.fullRow;
+                }
+            }
+
+            // Lift the piece's own cells back out
+            for (int i = 0; i < height; i++) {
+                board.rows[x + i] &= ~ring[base + 7 + i];
+            }
+            return Integer.bitCount(clearedBits);
+        }
+
+        // Fields of the record undo() just reverted
+        int undoneAction() {
+            return ring[head * STRIDE + 3];
+        }
+
+        int undonePieceId() {
+            return ring[head * STRIDE + 4];
+        }
+
+        long undoneTag() {
+            int base = head * STRIDE;
+            return (long) ring[base + 5] << 32 | (ring[base + 6] & 0xFFFFFFFFL);
         }
     }
 
@@ -19,32 +319,28 @@ public class TetrisGame {
     static int ROWS = 20;   // Height of the game board
     static int COLS = 10;   // Width of the game board
     static int[][] board;   // 2D array for the game board (0 = empty, 1 = filled)
-    static Queue<Block> blockQueue; // Queue for upcoming blocks
-    static Stack<int[][]> boardStates; // Stack for board states (for simplicity)
+    static PieceBag bag;    // Upcoming pieces (7-bag)
+    static final int HISTORY_DEPTH = 64; // Placements the console game can undo
+    static UndoLog history; // Undo history of placements (bitboard mode)
     static Block currentBlock; // The falling block
     static int score;       // Player's score
     static Random rand = new Random();
+    static boolean bitboardMode = true; // Use the bitmask board (fast path) instead of int[][]
+    static BitBoard bitBoard; // The board in bitboard mode
 
     // Initialize the game
     public static void initGame() {
         board = new int[ROWS][COLS]; // Create empty board
-        blockQueue = new LinkedList<>(); // Initialize block queue
-        boardStates = new Stack<>(); // Initialize stack for board states
+        bitBoard = new BitBoard(ROWS, COLS); // Same empty board as bitmasks
+        bag = new PieceBag(rand); // First bag of pieces
+        history = new UndoLog(HISTORY_DEPTH); // Empty undo history
         score = 0; // Start score at 0
-        // Push initial empty board state
-        boardStates.push(new int[ROWS][COLS]);
-        // Generate and enqueue first block
-        enqueueRandomBlock();
-        currentBlock = blockQueue.poll(); // Dequeue to start
+        currentBlock = new Block(Tetromino.ALL[bag.next()]); // The one Block object, reused from here on
     }
 
-    // Generate a random block and add to queue
-    public static void enqueueRandomBlock() {
-        // Simple L-shape block for demo (could expand to all Tetris shapes)
-        int[][] shape = {{1, 0}, {1, 0}, {1, 1}};
-        String[] colors = {"Red", "Blue", "Green", "Yellow"};
-        Block block = new Block(shape, colors[rand.nextInt(colors.length)]);
-        blockQueue.offer(block);
+    // Bring in the next block from the bag
+    public static void spawnNextBlock() {
+        currentBlock.reset(Tetromino.ALL[bag.next()]);
     }
 
     // Check if block can move to new position
@@ -110,54 +406,414 @@ public class TetrisGame {
         }
     }
 
+    // Can the current block sit at (newX, newY), checked on whichever board is active
+    static boolean blockFits(int newX, int newY) {
+        if (bitboardMode) {
+            return bitBoard.canPlace(currentBlock.masks, currentBlock.rotation, newX, newY);
+        }
+        return canMove(newX, newY, currentBlock.shape);
+    }
+
     // Main game loop
     public static void gameLoop() {
         initGame();
         Scanner scanner = new Scanner(System.in);
         while (true) {
-            // Check game over: top row filled
-            for (int j = 0; j < COLS; j++) {
+            // Check game over: top row filled (any bit set in bitboard mode)
+            boolean topFilled = bitboardMode && bitBoard.rows[0] != 0;
+            for (int j = 0; j < COLS && !bitboardMode; j++) {
                 if (board[0][j] == 1) {
-                    System.out.println("Game Over! Score: " + score);
-                    return;
+                    topFilled = true;
                 }
             }
+            if (topFilled) {
+                System.out.println("Game Over! Score: " + score);
+                return;
+            }
 
             // Display game state (simplified console output)
             System.out.println("Score: " + score);
-            System.out.println("Next block: " + blockQueue.peek().color);
-            for (int[] row : board) {
+            Tetromino upcoming = Tetromino.ALL[bag.peek()];
+            System.out.println("Current block: " + currentBlock.piece.name + " (" + currentBlock.color + ")");
+            System.out.println("Next block: " + upcoming.name + " (" + upcoming.color + ")");
+            for (int[] row : bitboardMode ? bitBoard.toArray() : board) {
                 System.out.println(Arrays.toString(row));
             }
 
             // Handle user input
-            System.out.print("Move (L/R/Rotate/Down): ");
+            System.out.print("Move (L/R/Rotate/Down/Undo): ");
             String input = scanner.nextLine().toUpperCase();
-            if (input.equals("L") && canMove(currentBlock.x, currentBlock.y - 1, currentBlock.shape)) {
+            if (input.equals("L") && blockFits(currentBlock.x, currentBlock.y - 1)) {
                 currentBlock.y--;
-            } else if (input.equals("R") && canMove(currentBlock.x, currentBlock.y + 1, currentBlock.shape)) {
+            } else if (input.equals("R") && blockFits(currentBlock.x, currentBlock.y + 1)) {
                 currentBlock.y++;
+            } else if (input.equals("UNDO") && bitboardMode) {
+                // Take back the last placement: that piece falls again from the top,
+                // and the one that was falling goes back to the front of the bag
+                int cleared = history.undo(bitBoard);
+                if (cleared >= 0) {
+                    score -= 10 * cleared;
+                    bag.pushFront(currentBlock.piece.id);
+                    currentBlock.reset(Tetromino.ALL[history.undonePieceId()]);
+                    continue;
+                }
             } else if (input.equals("ROTATE")) {
-                int[][] rotated = rotate(currentBlock.shape);
-                if (canMove(currentBlock.x, currentBlock.y, rotated)) {
-                    currentBlock.shape = rotated;
+                if (bitboardMode) {
+                    // Rotations are precomputed, so rotating is just the next index
+                    int next = (currentBlock.rotation + 1) & 3;
+                    if (bitBoard.canPlace(currentBlock.masks, next, currentBlock.x, currentBlock.y)) {
+                        currentBlock.setRotation(next);
+                    }
+                } else {
+                    // Rotated shapes come from the piece's table, not a fresh array
+                    int next = (currentBlock.rotation + 1) & 3;
+                    if (canMove(currentBlock.x, currentBlock.y, currentBlock.piece.shapes[next])) {
+                        currentBlock.setRotation(next);
+                    }
                 }
             }
 
             // Move block down
-            if (canMove(currentBlock.x + 1, currentBlock.y, currentBlock.shape)) {
+            if (blockFits(currentBlock.x + 1, currentBlock.y)) {
                 currentBlock.x++;
             } else {
-                placeBlock(); // Place block if it can't move down
-                checkAndClearRows(); // Check for completed rows
-                boardStates.push(board.clone()); // Save current state
-                enqueueRandomBlock(); // Generate new block
-                currentBlock = blockQueue.poll(); // Get next block
+                if (bitboardMode) {
+                    // Place, log the delta for undo, and clear rows - 10 points per cleared row
+                    score += 10 * history.placeAndRecord(bitBoard, currentBlock.masks, currentBlock.rotation,
+                            currentBlock.x, currentBlock.y, currentBlock.piece.id, 0);
+                } else {
+                    placeBlock(); // Place block if it can't move down
+                    checkAndClearRows(); // Check for completed rows (no undo history in this mode)
+                }
+                spawnNextBlock(); // Get next block
+            }
+        }
+    }
+
+    // Picks a placement for the headless engine. One agent per game, so agents may keep scratch state.
+    interface Agent {
+        // legal[0..legalCount) are the current placements; return one of them
+        int chooseAction(HeadlessGame game, int[] legal, int legalCount);
+    }
+
+    // A self-contained game for bulk simulation: no console, no shared static state, and
+    // nothing allocated per step. Each step hard-drops the current piece at a placement,
+    // encoded as rotation * cols + column (top-left corner of the piece).
+    // With an undo depth, steps are logged so they can be taken back, and the full action
+    // list is kept so the game can be replayed exactly from its seed.
+    static class HeadlessGame {
+        final BitBoard board;
+        final PieceMasks[] pieces; // Piece set the spawner draws from
+        final UndoLog log;         // Undo history, null when undo is off
+        long rngState;             // Spawner state (splitmix64), small enough to log with each step
+        int currentId;             // Index of the piece waiting to be placed
+        PieceMasks current;        // Piece waiting to be placed
+        long score, lines, drops;
+        boolean over;
+        int[] actions = new int[0]; // Every action taken since reset (only kept when undo is on)
+        int actionCount;
+
+        HeadlessGame(int rows, int cols, PieceMasks[] pieces) {
+            this(rows, cols, pieces, 0);
+        }
+
+        HeadlessGame(int rows, int cols, PieceMasks[] pieces, int undoDepth) {
+            this.board = new BitBoard(rows, cols);
+            this.pieces = pieces;
+            this.log = undoDepth > 0 ? new UndoLog(undoDepth) : null;
+        }
+
+        // Start a fresh game; the same seed always replays the same piece sequence
+        void reset(long seed) {
+            rngState = seed;
+            Arrays.fill(board.rows, 0);
+            score = 0;
+            lines = 0;
+            drops = 0;
+            over = false;
+            actionCount = 0;
+            if (log != null) {
+                log.head = 0;
+                log.size = 0;
+            }
+            spawn();
+        }
+
+        // Rebuild a game from its seed and the actions it took
+        void replay(long seed, int[] actions, int count) {
+            reset(seed);
+            for (int i = 0; i < count && step(actions[i]); i++) {
+                // step does the work
+            }
+        }
+
+        // Take back the last step; false if the undo history is empty (or off)
+        boolean undo() {
+            if (log == null) return false;
+            int cleared = log.undo(board);
+            if (cleared < 0) return false;
+
+            lines -= cleared;
+            score -= 10 * cleared;
+            drops--;
+            over = false;
+            actionCount--;
+
+            // The undone piece is up again, with the spawner exactly where it was when it was placed
+            currentId = log.undonePieceId();
+            current = pieces[currentId];
+            rngState = log.undoneTag();
+            return true;
+        }
+
+        // Most placements any piece can have, for sizing the legalPlacements buffer
+        int maxPlacements() {
+            return 4 * board.cols;
+        }
+
+        // Writes every placement the current piece can drop from into out, returns how many
+        int legalPlacements(int[] out) {
+            int count = 0;
+            if (over) return 0;
+            for (int rotation = 0; rotation < 4; rotation++) {
+                for (int column = 0; column + current.widths[rotation] <= board.cols; column++) {
+                    if (board.canPlace(current, rotation, 0, column)) {
+                        out[count++] = rotation * board.cols + column;
+                    }
+                }
+            }
+            return count;
+        }
+
+        // Row the current piece comes to rest on for this placement, or -1 if it can't enter
+        int landingRow(int action) {
+            int rotation = action / board.cols;
+            int column = action % board.cols;
+            if (!board.canPlace(current, rotation, 0, column)) return -1;
+            int x = 0;
+            while (board.canPlace(current, rotation, x + 1, column)) {
+                x++;
+            }
+            return x;
+        }
+
+        // Hard-drop the current piece; returns false once the game is over
+        boolean step(int action) {
+            if (over) return false;
+            int x = landingRow(action);
+            if (x < 0) {
+                over = true; // Illegal placement ends the game
+                return false;
+            }
+
+            int cleared;
+            if (log != null) {
+                cleared = log.placeAndRecord(board, current, action / board.cols, x, action % board.cols,
+                        currentId, rngState);
+                if (actionCount == actions.length) {
+                    actions = Arrays.copyOf(actions, Math.max(64, actionCount * 2));
+                }
+                actions[actionCount++] = action;
+            } else {
+                board.place(current, action / board.cols, x, action % board.cols);
+                cleared = board.clearFullRows();
             }
+            lines += cleared;
+            score += 10 * cleared; // 10 points per cleared row, as in the console game
+            drops++;
+
+            // Same game-over rule as the console game: anything left in the top row
+            if (board.rows[0] != 0) {
+                over = true;
+                return false;
+            }
+            spawn();
+            return true;
+        }
+
+        // Draw the next piece
+        private void spawn() {
+            currentId = (int) Long.remainderUnsigned(nextRandom(), pieces.length);
+            current = pieces[currentId];
+        }
+
+        // splitmix64 step: the whole generator is one long, so undo can restore it exactly
+        private long nextRandom() {
+            long z = (rngState += 0x9E3779B97F4A7C15L);
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
         }
     }
 
+    // Uniformly random placements
+    static class RandomAgent implements Agent {
+        final Random rng;
+
+        RandomAgent(long seed) {
+            rng = new Random(seed);
+        }
+
+        @Override
+        public int chooseAction(HeadlessGame game, int[] legal, int legalCount) {
+            return legal[rng.nextInt(legalCount)];
+        }
+    }
+
+    // One-ply search: try each placement on a scratch copy of the board and keep the one with the
+    // lowest (aggregate height + holes + bumpiness - cleared rows) score
+    static class GreedyAgent implements Agent {
+        private int[] scratch = new int[0];
+
+        @Override
+        public int chooseAction(HeadlessGame game, int[] legal, int legalCount) {
+            BitBoard board = game.board;
+            if (scratch.length != board.rows.length) scratch = new int[board.rows.length];
+
+            int best = legal[0];
+            int bestScore = Integer.MAX_VALUE;
+            for (int k = 0; k < legalCount; k++) {
+                int action = legal[k];
+                int x = game.landingRow(action);
+
+                // Place on the scratch copy
+                System.arraycopy(board.rows, 0, scratch, 0, scratch.length);
+                int[] mask = game.current.rows[action / board.cols];
+                int shift = action % board.cols;
+                for (int i = 0; i < mask.length; i++) {
+                    scratch[x + i] |= mask[i] << shift;
+                }
+
+                int score = evaluate(scratch, board.cols, board.fullRow);
+                if (score < bestScore) {
+                    bestScore = score;
+                    best = action;
+                }
+            }
+            return best;
+        }
+
+        // Lower is better; full rows count as if already cleared
+        private static int evaluate(int[] rows, int cols, int fullRow) {
+            int full = 0, height = 0, holes = 0, bumpiness = 0, previous = -1;
+            for (int row : rows) {
+                if (row == fullRow) full++;
+            }
+            for (int col = 0; col < cols; col++) {
+                int top = rows.length;
+                for (int i = 0; i < rows.length; i++) {
+                    if (rows[i] == fullRow) continue;
+                    if ((rows[i] >>> col & 1) != 0) {
+                        if (top == rows.length) top = i;
+                    } else if (top != rows.length) {
+                        holes++; // Empty cell under a filled one
+                    }
+                }
+                int columnHeight = rows.length - top;
+                height += columnHeight;
+                if (previous >= 0) bumpiness += Math.abs(columnHeight - previous);
+                previous = columnHeight;
+            }
+            return height + 4 * holes + bumpiness - 8 * full;
+        }
+    }
+
+    // Totals and throughput of a batch of headless games
+    static class SimulationStats {
+        long games, drops, lines, score;
+        double seconds;
+
+        void add(SimulationStats other) {
+            games += other.games;
+            drops += other.drops;
+            lines += other.lines;
+            score += other.score;
+        }
+
+        double gamesPerSecond() {
+            return games / seconds;
+        }
+
+        double dropsPerSecond() {
+            return drops / seconds;
+        }
+    }
+
+    // Plays games [lo, hi) of a batch, splitting the range across the fork-join pool
+    static class SimulationTask extends RecursiveTask<SimulationStats> {
+        static final int GAMES_PER_TASK = 8;
+
+        final int lo, hi, maxDrops;
+        final long seed;
+        final PieceMasks[] pieces;
+        final Supplier<Agent> agents;
+
+        SimulationTask(int lo, int hi, long seed, int maxDrops, PieceMasks[] pieces, Supplier<Agent> agents) {
+            this.lo = lo;
+            this.hi = hi;
+            this.seed = seed;
+            this.maxDrops = maxDrops;
+            this.pieces = pieces;
+            this.agents = agents;
+        }
+
+        @Override
+        protected SimulationStats compute() {
+            if (hi - lo > GAMES_PER_TASK) {
+                int mid = (lo + hi) >>> 1;
+                SimulationTask left = new SimulationTask(lo, mid, seed, maxDrops, pieces, agents);
+                left.fork();
+                SimulationStats stats = new SimulationTask(mid, hi, seed, maxDrops, pieces, agents).compute();
+                stats.add(left.join());
+                return stats;
+            }
+
+            // One game instance, legal-move buffer and agent per leaf, reused for every game in it
+            SimulationStats stats = new SimulationStats();
+            HeadlessGame game = new HeadlessGame(ROWS, COLS, pieces);
+            int[] legal = new int[game.maxPlacements()];
+            Agent agent = agents.get();
+            for (int g = lo; g < hi; g++) {
+                game.reset(seed + g); // Game g always sees the same pieces
+                while (game.drops < maxDrops) {
+                    int count = game.legalPlacements(legal);
+                    if (count == 0 || !game.step(agent.chooseAction(game, legal, count))) break;
+                }
+                stats.games++;
+                stats.drops += game.drops;
+                stats.lines += game.lines;
+                stats.score += game.score;
+            }
+            return stats;
+        }
+    }
+
+    // Runs many independent headless games in parallel and reports totals plus throughput
+    static SimulationStats simulate(int games, long seed, int maxDrops, PieceMasks[] pieces,
+                                    Supplier<Agent> agents, ForkJoinPool pool) {
+        long start = System.nanoTime();
+        SimulationStats stats = pool.invoke(new SimulationTask(0, games, seed, maxDrops, pieces, agents));
+        stats.seconds = (System.nanoTime() - start) / 1e9;
+        return stats;
+    }
+
     public static void main(String[] args) {
+        // Headless mode: java TetrisGame sim [games] runs bulk simulations instead of the console game
+        if (args.length > 0 && args[0].equals("sim")) {
+            int games = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+            PieceMasks[] pieces = Tetromino.allMasks();
+            ForkJoinPool pool = ForkJoinPool.commonPool();
+
+            SimulationStats random = simulate(games, 1, 1_000, pieces, () -> new RandomAgent(7), pool);
+            System.out.printf("random: %d games, %d drops, %d lines, %.0f games/sec, %.0f drops/sec%n",
+                    random.games, random.drops, random.lines, random.gamesPerSecond(), random.dropsPerSecond());
+
+            SimulationStats greedy = simulate(games, 1, 1_000, pieces, GreedyAgent::new, pool);
+            System.out.printf("greedy: %d games, %d drops, %d lines, %.0f games/sec, %.0f drops/sec%n",
+                    greedy.games, greedy.drops, greedy.lines, greedy.gamesPerSecond(), greedy.dropsPerSecond());
+            return;
+        }
+
         gameLoop();
     }
 }
\ No newline at end of file
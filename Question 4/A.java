@@ -1,4 +1,13 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 public class TopHashtags {
     public static List<String[]> getTopHashtags(String[][] tweets) {
@@ -38,7 +47,1053 @@ public class TopHashtags {
         return hashtagList.subList(0, Math.min(3, hashtagList.size()));
     }
 
-    public static void main(String[] args) {
+    // ---- Streaming mode ----
+    // Tweets arrive one per line as tab-separated columns (id, user, text, date), UTF-8 encoded.
+    // Lines are scanned as raw bytes: a hashtag is a whitespace-delimited word in the text column
+    // starting with '#' and longer than 1, exactly as split("\\s+") sees it. Whitespace is ASCII,
+    // so splitting UTF-8 bytes never cuts a character in half. Counts go into a primitive
+    // open-addressing map and the top K are picked with a size-K heap, so memory depends on the
+    // number of distinct hashtags, not the number of tweets.
+
+    // Top k hashtags of a tweet stream, as [hashtag, count] pairs in the same order as getTopHashtags
+    public static List<String[]> getTopHashtags(InputStream in, int k) throws IOException {
+        if (k < 1) throw new IllegalArgumentException("k must be at least 1");
+        TagCounts counts = new TagCounts();
+        forEachLine(in, (buf, from, to) -> scanTags(buf, from, to, counts));
+        return counts.topK(k);
+    }
+
+    // Sees each line of the input as buf[from, to), without the line terminator
+    interface LineVisitor {
+        void line(byte[] buf, int from, int to);
+    }
+
+    // Receives each hashtag found as buf[off, off + len) along with its hash
+    interface TagSink {
+        void tag(byte[] buf, int off, int len, int hash);
+    }
+
+    // Reads the stream in large chunks and hands out complete lines; the buffer only grows
+    // if a single line is longer than it
+    static void forEachLine(InputStream in, LineVisitor visitor) throws IOException {
+        byte[] buf = new byte[1 << 16];
+        int start = 0, end = 0; // Unprocessed bytes are buf[start, end)
+        while (true) {
+            // Make room: slide the partial line to the front, or grow if it fills the buffer
+            if (start > 0) {
+                System.arraycopy(buf, start, buf, 0, end - start);
+                end -= start;
+                start = 0;
+            }
+            if (end == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+
+            int read = in.read(buf, end, buf.length - end);
+            if (read < 0) break;
+            int scanFrom = end;
+            end += read;
+
+            // Hand out every complete line in what we have
+            for (int i = scanFrom; i < end; i++) {
+                if (buf[i] == '\n') {
+                    visitor.line(buf, start, trimCr(buf, start, i));
+                    start = i + 1;
+                }
+            }
+        }
+        // Last line without a newline
+        if (start < end) visitor.line(buf, start, trimCr(buf, start, end));
+    }
+
+    // Drop a trailing '\r' so Windows line endings don't glue onto the last word
+    private static int trimCr(byte[] buf, int from, int to) {
+        return to > from && buf[to - 1] == '\r' ? to - 1 : to;
+    }
+
+    // Find the text column (third tab-separated field) of one line and emit its hashtags
+    static void scanTags(byte[] buf, int from, int to, TagSink sink) {
+        int textFrom = from;
+        for (int tabs = 0; tabs < 2; tabs++) {
+            while (textFrom < to && buf[textFrom] != '\t') textFrom++;
+            if (textFrom == to) return; // No text column
+            textFrom++;
+        }
+        int textTo = textFrom;
+        while (textTo < to && buf[textTo] != '\t') textTo++;
+        scanText(buf, textFrom, textTo, sink);
+    }
+
+    // Hand-written tokenizer for the text: words are runs of non-whitespace bytes
+    static void scanText(byte[] buf, int from, int to, TagSink sink) {
+        int i = from;
+        while (i < to) {
+            while (i < to && isSpace(buf[i])) i++;
+            int wordStart = i;
+            int hash = FNV_OFFSET;
+            while (i < to && !isSpace(buf[i])) {
+                hash = (hash ^ (buf[i] & 0xFF)) * FNV_PRIME; // Hash while scanning, no second pass
+                i++;
+            }
+            if (i - wordStart > 1 && buf[wordStart] == '#') {
+                sink.tag(buf, wordStart, i - wordStart, hash);
+            }
+        }
+    }
+
+    // The characters \s matches: space, \t, \n, \u000B, \f, \r
+    private static boolean isSpace(byte b) {
+        return b == ' ' || (b >= '\t' && b <= '\r');
+    }
+
+    // FNV-1a, 32-bit
+    static final int FNV_OFFSET = 0x811C9DC5;
+    static final int FNV_PRIME = 0x01000193;
+
+    // Hashtag -> count map with open addressing (linear probing). Key bytes are copied once into
+    // a shared byte pool the first time a tag is seen; after that a hit allocates nothing.
+    static class TagCounts implements TagSink {
+        int[] slots;       // Entry index + 1 per table slot, 0 = empty
+        int[] hashes;      // Per entry: hash of the key
+        int[] keyOffset;   // Per entry: where the key starts in pool
+        int[] keyLength;   // Per entry: key length in bytes
+        long[] counts;     // Per entry: count
+        byte[] pool = new byte[1 << 12];
+        int poolSize;
+        int size;          // Distinct hashtags
+
+        TagCounts() {
+            slots = new int[1 << 10];
+            hashes = new int[1 << 9];
+            keyOffset = new int[1 << 9];
+            keyLength = new int[1 << 9];
+            counts = new long[1 << 9];
+        }
+
+        @Override
+        public void tag(byte[] buf, int off, int len, int hash) {
+            add(buf, off, len, hash, 1);
+        }
+
+        // Add delta to the count of the key buf[off, off + len); returns the key's entry index
+        int add(byte[] buf, int off, int len, int hash, long delta) {
+            int mask = slots.length - 1;
+            int slot = spread(hash) & mask;
+            while (slots[slot] != 0) {
+                int e = slots[slot] - 1;
+                if (hashes[e] == hash && keyEquals(e, buf, off, len)) {
+                    counts[e] += delta;
+                    return e;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            // New key: copy its bytes into the pool and claim the empty slot
+            if (size == counts.length) growEntries();
+            if (poolSize + len > pool.length) pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + len));
+            System.arraycopy(buf, off, pool, poolSize, len);
+            hashes[size] = hash;
+            keyOffset[size] = poolSize;
+            keyLength[size] = len;
+            counts[size] = delta;
+            poolSize += len;
+            slots[slot] = ++size;
+
+            // Keep the table at most half full so probe runs stay short
+            if (size * 2 > slots.length) rehash();
+            return size - 1;
+        }
+
+        // Add every count of other into this map
+        void merge(TagCounts other) {
+            for (int e = 0; e < other.size; e++) {
+                add(other.pool, other.keyOffset[e], other.keyLength[e], other.hashes[e], other.counts[e]);
+            }
+        }
+
+        // Count of one hashtag (0 if never seen)
+        long count(String tag) {
+            byte[] key = tag.getBytes(StandardCharsets.UTF_8);
+            int hash = hashOf(key);
+            int mask = slots.length - 1;
+            for (int slot = spread(hash) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+                int e = slots[slot] - 1;
+                if (hashes[e] == hash && keyEquals(e, key, 0, key.length)) return counts[e];
+            }
+            return 0;
+        }
+
+        String key(int e) {
+            return new String(pool, keyOffset[e], keyLength[e], StandardCharsets.UTF_8);
+        }
+
+        private boolean keyEquals(int e, byte[] buf, int off, int len) {
+            if (keyLength[e] != len) return false;
+            int p = keyOffset[e];
+            for (int i = 0; i < len; i++) {
+                if (pool[p + i] != buf[off + i]) return false;
+            }
+            return true;
+        }
+
+        private void growEntries() {
+            int n = counts.length * 2;
+            hashes = Arrays.copyOf(hashes, n);
+            keyOffset = Arrays.copyOf(keyOffset, n);
+            keyLength = Arrays.copyOf(keyLength, n);
+            counts = Arrays.copyOf(counts, n);
+        }
+
+        // Double the table and re-slot every entry (hashes are stored, so keys aren't rehashed)
+        private void rehash() {
+            slots = new int[slots.length * 2];
+            int mask = slots.length - 1;
+            for (int e = 0; e < size; e++) {
+                int slot = spread(hashes[e]) & mask;
+                while (slots[slot] != 0) slot = (slot + 1) & mask;
+                slots[slot] = e + 1;
+            }
+        }
+
+        // Entry order used for ranking: higher count first, then the key in byte order
+        // (the same as String order for every character outside the surrogate range)
+        int compareEntries(int a, int b) {
+            if (counts[a] != counts[b]) return counts[a] > counts[b] ? -1 : 1;
+            int pa = keyOffset[a], pb = keyOffset[b];
+            int n = Math.min(keyLength[a], keyLength[b]);
+            for (int i = 0; i < n; i++) {
+                int diff = (pool[pa + i] & 0xFF) - (pool[pb + i] & 0xFF);
+                if (diff != 0) return diff;
+            }
+            return keyLength[a] - keyLength[b];
+        }
+
+        // Best k entries via a size-k heap whose root is the worst of the current best
+        List<String[]> topK(int k) {
+            int[] heap = new int[Math.min(k, size)];
+            int heapSize = 0;
+            for (int e = 0; e < size; e++) {
+                if (heapSize < heap.length) {
+                    heap[heapSize++] = e;
+                    siftUp(heap, heapSize - 1);
+                } else if (heapSize > 0 && compareEntries(e, heap[0]) < 0) {
+                    heap[0] = e; // Better than the worst kept: replace it
+                    siftDown(heap, heapSize, 0);
+                }
+            }
+
+            // Popping the root repeatedly yields worst first, so fill the result from the back
+            String[][] ranked = new String[heapSize][];
+            for (int i = heapSize - 1; i >= 0; i--) {
+                int e = heap[0];
+                ranked[i] = new String[]{key(e), String.valueOf(counts[e])};
+                heap[0] = heap[i];
+                siftDown(heap, i, 0);
+            }
+            return new ArrayList<>(Arrays.asList(ranked));
+        }
+
+        // Heap order: the parent ranks after (is worse than) its children
+        private void siftUp(int[] heap, int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (compareEntries(heap[i], heap[parent]) <= 0) return;
+                int t = heap[i]; heap[i] = heap[parent]; heap[parent] = t;
+                i = parent;
+            }
+        }
+
+        private void siftDown(int[] heap, int n, int i) {
+            while (true) {
+                int worst = i;
+                int left = 2 * i + 1, right = left + 1;
+                if (left < n && compareEntries(heap[left], heap[worst]) > 0) worst = left;
+                if (right < n && compareEntries(heap[right], heap[worst]) > 0) worst = right;
+                if (worst == i) return;
+                int t = heap[i]; heap[i] = heap[worst]; heap[worst] = t;
+                i = worst;
+            }
+        }
+    }
+
+    // Scramble the FNV bits so the low bits used for slots depend on the whole hash
+    static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        return h ^ (h >>> 13);
+    }
+
+    // ---- Sharded mode ----
+    // For archived tweet files: the file is cut into byte ranges that start and end on line
+    // boundaries, each range is memory-mapped and counted into its own TagCounts by a fork-join
+    // task, and the per-shard maps are merged pairwise on the way back up. No state is shared
+    // while counting, so throughput scales with cores until the disk or memory bus runs out.
+
+    static final long MAX_SHARD_BYTES = 1L << 28; // 256 MB, well under the 2 GB FileChannel.map limit
+
+    public static List<String[]> getTopHashtags(Path file, int k) throws IOException {
+        return getTopHashtags(file, k, ForkJoinPool.commonPool());
+    }
+
+    public static List<String[]> getTopHashtags(Path file, int k, ForkJoinPool pool) throws IOException {
+        if (k < 1) throw new IllegalArgumentException("k must be at least 1");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // A few shards per worker so stealing can even out lines of different lengths
+            long size = channel.size();
+            long shards = Math.max((long) pool.getParallelism() * 4, (size + MAX_SHARD_BYTES - 1) / MAX_SHARD_BYTES);
+            long[] bounds = shardBounds(channel, shards);
+            return pool.invoke(new ShardTask(channel, bounds, 0, bounds.length - 1)).topK(k);
+        }
+    }
+
+    // Shard boundaries: roughly size / shards apart, each moved forward to just past a newline
+    static long[] shardBounds(FileChannel channel, long shards) throws IOException {
+        long size = channel.size();
+        long step = Math.max(1, Math.min(MAX_SHARD_BYTES, size / Math.max(1, shards)));
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(1 << 12);
+
+        long target = step;
+        while (target < size) {
+            // Find the first newline at or after target - 1; the shard ends right after it
+            long at = target - 1;
+            long boundary = size;
+            search:
+            while (at < size) {
+                probe.clear();
+                int read = channel.read(probe, at);
+                if (read <= 0) break;
+                for (int i = 0; i < read; i++) {
+                    if (probe.get(i) == '\n') {
+                        boundary = at + i + 1;
+                        break search;
+                    }
+                }
+                at += read;
+            }
+            if (boundary >= size) break;
+            bounds.add(boundary);
+            target = boundary + step;
+        }
+        bounds.add(size);
+
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    // Counts shards bounds[lo]..bounds[hi] by splitting the list of shards in half
+    static class ShardTask extends RecursiveTask<TagCounts> {
+        final FileChannel channel;
+        final long[] bounds;
+        final int lo, hi; // Boundary indices, hi - lo shards
+
+        ShardTask(FileChannel channel, long[] bounds, int lo, int hi) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected TagCounts compute() {
+            if (hi - lo <= 1) {
+                TagCounts counts = new TagCounts();
+                if (hi > lo && bounds[hi] > bounds[lo]) {
+                    try {
+                        ByteBuffer shard = channel.map(FileChannel.MapMode.READ_ONLY, bounds[lo], bounds[hi] - bounds[lo]);
+                        forEachLine(asStream(shard), (buf, from, to) -> scanTags(buf, from, to, counts));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return counts;
+            }
+
+            // Fork the left half, count the right half here, then fold the smaller map into the bigger
+            int mid = (lo + hi) >>> 1;
+            ShardTask left = new ShardTask(channel, bounds, lo, mid);
+            left.fork();
+            TagCounts right = new ShardTask(channel, bounds, mid, hi).compute();
+            TagCounts leftCounts = left.join();
+            if (leftCounts.size < right.size) {
+                right.merge(leftCounts);
+                return right;
+            }
+            leftCounts.merge(right);
+            return leftCounts;
+        }
+    }
+
+    // A mapped buffer read as a stream, so the chunked line reader copies straight out of the mapping
+    static InputStream asStream(ByteBuffer buffer) {
+        return new InputStream() {
+            @Override
+            public int read() {
+                return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (!buffer.hasRemaining()) return -1;
+                int n = Math.min(len, buffer.remaining());
+                buffer.get(b, off, n);
+                return n;
+            }
+        };
+    }
+
+    // Tweets/sec of the sharded counter at 1, 2, 4, ... workers, checked against the streaming result
+    static void shardBenchmark(byte[] feed, int tweets, int k) throws IOException {
+        Path file = Files.createTempFile("tweets", ".tsv");
+        try {
+            Files.write(file, feed);
+            List<String[]> expected = getTopHashtags(new ByteArrayInputStream(feed), k);
+
+            System.out.println("workers  time(ms)  tweets/sec  speedup");
+            double baseline = 0;
+            int cores = Runtime.getRuntime().availableProcessors();
+            for (int workers = 1; workers <= cores; workers = workers == cores ? cores + 1 : Math.min(cores, workers * 2)) {
+                ForkJoinPool pool = new ForkJoinPool(workers);
+                try {
+                    getTopHashtags(file, k, pool); // Warm-up run
+
+                    long start = System.nanoTime();
+                    List<String[]> top = getTopHashtags(file, k, pool);
+                    double millis = (System.nanoTime() - start) / 1e6;
+
+                    for (int i = 0; i < top.size(); i++) {
+                        if (top.size() != expected.size() || !Arrays.equals(top.get(i), expected.get(i))) {
+                            throw new IllegalStateException("Sharded top " + k + " differs from the streaming result");
+                        }
+                    }
+                    if (workers == 1) baseline = millis;
+                    System.out.printf("%-8d %-9.1f %-11.0f %.2fx%n", workers, millis, tweets / (millis / 1000),
+                            baseline / millis);
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    // ---- Approximate mode ----
+    // Fixed memory no matter how many distinct hashtags show up. A Count-Min Sketch estimates every
+    // tag's count (never under, over by at most epsilon * total with probability 1 - delta), and a
+    // Space-Saving style summary keeps the `capacity` tags with the highest estimates seen so far.
+
+    // Approximate top k: the sketch is sized from epsilon/delta and tracks max(k, 1/epsilon) candidates
+    public static List<String[]> getTopHashtagsApprox(InputStream in, int k, double epsilon, double delta)
+            throws IOException {
+        if (k < 1) throw new IllegalArgumentException("k must be at least 1");
+        HeavyHitters hitters = new HeavyHitters(epsilon, delta, Math.max(k, (int) Math.ceil(1 / epsilon)));
+        forEachLine(in, (buf, from, to) -> scanTags(buf, from, to, hitters));
+        return hitters.topK(k);
+    }
+
+    static class HeavyHitters implements TagSink {
+        // Count-Min Sketch: depth rows of width counters, row i indexed by h1 + i * h2
+        final int width, depth;
+        final long[] sketch;
+        long total; // Hashtags counted
+
+        // Candidate summary: a min-heap on estimate (root = weakest candidate) plus an
+        // open-addressing index from key to heap position
+        final int capacity;
+        final byte[][] keys;
+        final int[] keyHashes;
+        final long[] estimates;
+        final int[] slotOf;  // Heap position -> index slot
+        final int[] index;   // Index slot -> heap position + 1, 0 = empty
+        int heapSize;
+
+        HeavyHitters(double epsilon, double delta, int capacity) {
+            if (!(epsilon > 0 && epsilon < 1) || !(delta > 0 && delta < 1)) {
+                throw new IllegalArgumentException("epsilon and delta must be in (0, 1)");
+            }
+            if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1");
+            this.width = (int) Math.ceil(Math.E / epsilon);
+            this.depth = (int) Math.ceil(Math.log(1 / delta));
+            this.sketch = new long[width * depth];
+            this.capacity = capacity;
+            this.keys = new byte[capacity][];
+            this.keyHashes = new int[capacity];
+            this.estimates = new long[capacity];
+            this.slotOf = new int[capacity];
+            this.index = new int[Integer.highestOneBit(capacity * 4 - 1) << 1];
+        }
+
+        @Override
+        public void tag(byte[] buf, int off, int len, int hash) {
+            total++;
+            long estimate = addToSketch(hash, 1);
+            offer(buf, off, len, hash, estimate);
+        }
+
+        // Add delta to every row's counter for this hash; returns the new estimate (the row minimum)
+        private long addToSketch(int hash, long delta) {
+            int h1 = spread(hash), h2 = secondHash(hash);
+            long min = Long.MAX_VALUE;
+            for (int i = 0; i < depth; i++) {
+                int cell = i * width + Math.floorMod(h1 + i * h2, width);
+                sketch[cell] += delta;
+                min = Math.min(min, sketch[cell]);
+            }
+            return min;
+        }
+
+        // Sketch estimate for a hash, without changing anything
+        private long estimate(int hash) {
+            int h1 = spread(hash), h2 = secondHash(hash);
+            long min = Long.MAX_VALUE;
+            for (int i = 0; i < depth; i++) {
+                min = Math.min(min, sketch[i * width + Math.floorMod(h1 + i * h2, width)]);
+            }
+            return min;
+        }
+
+        // Estimated count of one hashtag
+        long estimate(String tag) {
+            return estimate(hashOf(tag.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        // Update a tracked key, or let it displace the weakest candidate if its estimate is higher
+        private void offer(byte[] buf, int off, int len, int hash, long estimate) {
+            int slot = findSlot(buf, off, len, hash);
+            if (index[slot] != 0) {
+                int pos = index[slot] - 1;
+                estimates[pos] = estimate;
+                siftDown(pos); // Estimates only grow, so it can only sink away from the root
+                return;
+            }
+            if (heapSize < capacity) {
+                int pos = heapSize++;
+                store(pos, Arrays.copyOfRange(buf, off, off + len), hash, estimate, slot);
+                siftUp(pos);
+            } else if (estimate > estimates[0]) {
+                removeFromIndex(slotOf[0]);
+                slot = findSlot(buf, off, len, hash); // Deletion may have shifted the probe run
+                store(0, Arrays.copyOfRange(buf, off, off + len), hash, estimate, slot);
+                siftDown(0);
+            }
+        }
+
+        // Combine another summary built with the same epsilon/delta (e.g. one per shard): the
+        // sketches add cell by cell, and the candidates from both sides are re-ranked on the merged sketch
+        void merge(HeavyHitters other) {
+            if (other.width != width || other.depth != depth) {
+                throw new IllegalArgumentException("Sketches have different dimensions");
+            }
+            for (int i = 0; i < sketch.length; i++) {
+                sketch[i] += other.sketch[i];
+            }
+            total += other.total;
+
+            // Our own candidates' estimates only went up, so refresh them all and re-heapify
+            for (int pos = 0; pos < heapSize; pos++) {
+                estimates[pos] = estimate(keyHashes[pos]);
+            }
+            for (int pos = heapSize / 2 - 1; pos >= 0; pos--) {
+                siftDown(pos);
+            }
+            for (int pos = 0; pos < other.heapSize; pos++) {
+                byte[] key = other.keys[pos];
+                offer(key, 0, key.length, other.keyHashes[pos], estimate(other.keyHashes[pos]));
+            }
+        }
+
+        // Best k candidates by estimate, ties by key as in the exact counter
+        List<String[]> topK(int k) {
+            Integer[] order = new Integer[heapSize];
+            for (int i = 0; i < heapSize; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> {
+                if (estimates[a] != estimates[b]) return estimates[a] > estimates[b] ? -1 : 1;
+                return Arrays.compareUnsigned(keys[a], keys[b]);
+            });
+            List<String[]> result = new ArrayList<>();
+            for (int i = 0; i < Math.min(k, heapSize); i++) {
+                int pos = order[i];
+                result.add(new String[]{new String(keys[pos], StandardCharsets.UTF_8), String.valueOf(estimates[pos])});
+            }
+            return result;
+        }
+
+        // Fixed memory footprint in bytes (sketch plus candidate arrays, not counting key bytes)
+        long memoryBytes() {
+            return 8L * sketch.length + 4L * index.length + (8L + 4 + 4 + 8) * capacity;
+        }
+
+        // Index slot holding this key, or the empty slot where it would go
+        private int findSlot(byte[] buf, int off, int len, int hash) {
+            int mask = index.length - 1;
+            int slot = spread(hash) & mask;
+            while (index[slot] != 0) {
+                int pos = index[slot] - 1;
+                if (keyHashes[pos] == hash && Arrays.equals(keys[pos], 0, keys[pos].length, buf, off, off + len)) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        // Linear-probing delete: pull later entries of the run back so no lookup hits a false gap
+        private void removeFromIndex(int slot) {
+            int mask = index.length - 1;
+            index[slot] = 0;
+            int next = (slot + 1) & mask;
+            while (index[next] != 0) {
+                int pos = index[next] - 1;
+                int home = spread(keyHashes[pos]) & mask;
+                // Move it into the hole if its home is not between the hole and where it sits
+                if (((next - home) & mask) >= ((next - slot) & mask)) {
+                    index[slot] = index[next];
+                    slotOf[pos] = slot;
+                    index[next] = 0;
+                    slot = next;
+                }
+                next = (next + 1) & mask;
+            }
+        }
+
+        private void store(int pos, byte[] key, int hash, long estimate, int slot) {
+            keys[pos] = key;
+            keyHashes[pos] = hash;
+            estimates[pos] = estimate;
+            slotOf[pos] = slot;
+            index[slot] = pos + 1;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (estimates[parent] <= estimates[i]) return;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int least = i;
+                int left = 2 * i + 1, right = left + 1;
+                if (left < heapSize && estimates[left] < estimates[least]) least = left;
+                if (right < heapSize && estimates[right] < estimates[least]) least = right;
+                if (least == i) return;
+                swap(i, least);
+                i = least;
+            }
+        }
+
+        // Swap two heap entries and repoint their index slots
+        private void swap(int a, int b) {
+            byte[] key = keys[a]; keys[a] = keys[b]; keys[b] = key;
+            int h = keyHashes[a]; keyHashes[a] = keyHashes[b]; keyHashes[b] = h;
+            long e = estimates[a]; estimates[a] = estimates[b]; estimates[b] = e;
+            int s = slotOf[a]; slotOf[a] = slotOf[b]; slotOf[b] = s;
+            index[slotOf[a]] = a + 1;
+            index[slotOf[b]] = b + 1;
+        }
+    }
+
+    // Second, independent-enough hash for the sketch rows (odd, so rows never collapse onto one cell)
+    static int secondHash(int h) {
+        h *= 0x9E3779B1;
+        return (h ^ (h >>> 15)) | 1;
+    }
+
+    // FNV-1a of a whole key, the same hash the scanner computes
+    static int hashOf(byte[] key) {
+        int hash = FNV_OFFSET;
+        for (byte b : key) {
+            hash = (hash ^ (b & 0xFF)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    // Approximate vs exact on a synthetic Zipf-distributed feed: time, memory, and how close the top k is;
+    // then the sharded counter's scaling on the same feed written to a file
+    static void benchmark(int tweets, int distinctTags, int k) throws IOException {
+        byte[] feed = zipfFeed(tweets, distinctTags, 1.1, 42);
+
+        long start = System.nanoTime();
+        TagCounts exact = new TagCounts();
+        forEachLine(new ByteArrayInputStream(feed), (buf, from, to) -> scanTags(buf, from, to, exact));
+        double exactSeconds = (System.nanoTime() - start) / 1e9;
+        long exactBytes = 4L * exact.slots.length + (4L + 4 + 4 + 8) * exact.counts.length + exact.pool.length;
+        List<String[]> truth = exact.topK(k);
+        System.out.printf("exact:  %.0f tweets/sec, %d distinct tags, ~%d KB%n",
+                tweets / exactSeconds, exact.size, exactBytes / 1024);
+
+        for (double epsilon : new double[]{1e-2, 1e-3, 1e-4}) {
+            start = System.nanoTime();
+            HeavyHitters approx = new HeavyHitters(epsilon, 0.01, Math.max(k, (int) Math.ceil(1 / epsilon)));
+            forEachLine(new ByteArrayInputStream(feed), (buf, from, to) -> scanTags(buf, from, to, approx));
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            // Recall of the true top k, and the worst overestimate among them relative to the bound
+            Set<String> found = new HashSet<>();
+            for (String[] entry : approx.topK(k)) found.add(entry[0]);
+            int hits = 0;
+            long worstOver = 0;
+            for (String[] entry : truth) {
+                if (found.contains(entry[0])) hits++;
+                worstOver = Math.max(worstOver, approx.estimate(entry[0]) - Long.parseLong(entry[1]));
+            }
+            System.out.printf("eps=%.0e: %.0f tweets/sec, ~%d KB, top-%d recall %d/%d, worst overestimate %d (bound %d)%n",
+                    epsilon, tweets / seconds, approx.memoryBytes() / 1024, k, hits, truth.size(), worstOver,
+                    (long) Math.ceil(epsilon * approx.total));
+        }
+
+        shardBenchmark(feed, tweets, k);
+    }
+
+    // Synthetic feed in the streaming format: tag i is drawn with weight 1 / i^s
+    static byte[] zipfFeed(int tweets, int distinctTags, double s, long seed) throws IOException {
+        double[] cumulative = new double[distinctTags];
+        double sum = 0;
+        for (int i = 0; i < distinctTags; i++) {
+            sum += 1 / Math.pow(i + 1, s);
+            cumulative[i] = sum;
+        }
+        Random rand = new Random(seed);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        for (int t = 0; t < tweets; t++) {
+            writer.write(t + "\tuser" + rand.nextInt(1000) + "\tSome words here");
+            int tags = 1 + rand.nextInt(3);
+            for (int j = 0; j < tags; j++) {
+                int tag = Arrays.binarySearch(cumulative, rand.nextDouble() * sum);
+                writer.write(" #tag" + (tag < 0 ? -tag - 1 : tag));
+            }
+            writer.write("\t2024-02-01\n");
+        }
+        writer.flush();
+        return out.toByteArray();
+    }
+
+    // ---- Time windows ----
+    // Trending = top k over the last window of time, by the tweet's date column. The window is a
+    // ring of time buckets, each with its own per-tag counters; when time moves past a bucket its
+    // counts are subtracted from the window totals and the bucket is reused. The totals are kept
+    // in an array sorted by count, so a "trending now" query reads the top k off the front.
+
+    static final long HOUR = 3600, DAY = 24 * HOUR;
+
+    // Top k over the window ending at the newest tweet in the stream
+    public static List<String[]> getTrendingHashtags(InputStream in, long windowSeconds, int buckets, int k)
+            throws IOException {
+        if (k < 1) throw new IllegalArgumentException("k must be at least 1");
+        TrendingWindow window = new TrendingWindow(windowSeconds, buckets);
+        forEachLine(in, window::line);
+        return window.topK(k);
+    }
+
+    // Sliding window of windowSeconds made of `buckets` buckets: it moves forward one bucket at a
+    // time. A single bucket gives a tumbling window.
+    static class TrendingWindow implements TagSink {
+        final long bucketSeconds;
+        final int buckets;
+        final IdCounts[] ring;          // Per-bucket counts by entry index of totals
+        long newestBucket = Long.MIN_VALUE;
+        long currentBucket;             // Bucket of the line being scanned
+
+        TagCounts totals = new TagCounts(); // Window counts (entries with count 0 linger until compaction)
+        int[] order = new int[64];          // Entry indices sorted by count, highest first
+        int[] position = new int[64];       // Entry index -> place in order
+        int orderSize;                      // Entries placed in order (totals.size between calls)
+        int zeros;                          // Entries whose window count dropped to 0
+
+        TrendingWindow(long windowSeconds, int buckets) {
+            if (buckets < 1 || windowSeconds < buckets || windowSeconds % buckets != 0) {
+                throw new IllegalArgumentException("Window must split into whole-second buckets");
+            }
+            this.bucketSeconds = windowSeconds / buckets;
+            this.buckets = buckets;
+            this.ring = new IdCounts[buckets];
+            for (int i = 0; i < buckets; i++) {
+                ring[i] = new IdCounts();
+            }
+        }
+
+        // One tweet line: move the window to its time, then count its hashtags
+        void line(byte[] buf, int from, int to) {
+            long time = tweetTime(buf, from, to);
+            if (time == Long.MIN_VALUE) return; // No usable date
+            currentBucket = Math.floorDiv(time, bucketSeconds);
+            advanceTo(currentBucket);
+            if (currentBucket <= newestBucket - buckets) return; // Too late, already out of the window
+            scanTags(buf, from, to, this);
+        }
+
+        // Move the window so it ends at epoch second `time` (e.g. for a query with no new tweets)
+        void advanceToTime(long time) {
+            advanceTo(Math.floorDiv(time, bucketSeconds));
+        }
+
+        private void advanceTo(long bucket) {
+            if (newestBucket == Long.MIN_VALUE) {
+                newestBucket = bucket;
+                return;
+            }
+            // Expire the buckets the window slides past (at most the whole ring)
+            long steps = Math.min(bucket - newestBucket, buckets);
+            for (long s = 1; s <= steps; s++) {
+                expire(ring[(int) Math.floorMod(newestBucket + s, (long) buckets)]);
+            }
+            newestBucket = Math.max(newestBucket, bucket);
+
+            // Once most entries are dead, drop them so memory follows the window, not all history
+            if (zeros > 1024 && zeros * 2 > orderSize) compact();
+        }
+
+        @Override
+        public void tag(byte[] buf, int off, int len, int hash) {
+            int e = totals.add(buf, off, len, hash, 0);
+            if (e == orderSize) {
+                // First time seen: joins the end of the order with count 0
+                ensureCapacity(e + 1);
+                order[e] = e;
+                position[e] = e;
+                orderSize = e + 1;
+                zeros++;
+            }
+            ring[(int) Math.floorMod(currentBucket, (long) buckets)].add(e, 1);
+            increment(e);
+        }
+
+        // Count +1: swap to the front of its equal-count run, then bump (the order stays sorted)
+        private void increment(int e) {
+            long c = totals.counts[e];
+            if (c == 0) zeros--;
+            int first = firstAtMost(c);
+            swap(position[e], first);
+            totals.counts[e] = c + 1;
+        }
+
+        // Count -delta: hop to the back of each equal-count run on the way down
+        private void decrement(int e, long delta) {
+            long target = totals.counts[e] - delta;
+            while (totals.counts[e] > target) {
+                int last = firstAtMost(totals.counts[e] - 1) - 1;
+                swap(position[e], last);
+                // Drop to the next run's count (joining it at its front), or straight to the target
+                long below = last + 1 < orderSize ? totals.counts[order[last + 1]] : 0;
+                totals.counts[e] = Math.max(target, below);
+            }
+            if (target == 0) zeros++;
+        }
+
+        // First place in order whose count is <= c (binary search on the descending counts)
+        private int firstAtMost(long c) {
+            int lo = 0, hi = orderSize;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (totals.counts[order[mid]] <= c) hi = mid; else lo = mid + 1;
+            }
+            return lo;
+        }
+
+        private void swap(int i, int j) {
+            int a = order[i], b = order[j];
+            order[i] = b;
+            order[j] = a;
+            position[b] = i;
+            position[a] = j;
+        }
+
+        private void expire(IdCounts bucket) {
+            for (int i = 0; i < bucket.size; i++) {
+                int slot = bucket.used[i];
+                decrement(bucket.keys[slot], bucket.values[slot]);
+            }
+            bucket.clear();
+        }
+
+        // Drop tags that left the window: rebuild totals with only live entries and renumber everything
+        private void compact() {
+            TagCounts live = new TagCounts();
+            int[] renumber = new int[totals.size];
+            int liveCount = orderSize - zeros; // Zeros sit at the end of the order
+            for (int i = 0; i < liveCount; i++) {
+                int e = order[i];
+                renumber[e] = live.add(totals.pool, totals.keyOffset[e], totals.keyLength[e], totals.hashes[e],
+                        totals.counts[e]);
+                order[i] = i;
+                position[i] = i;
+            }
+            for (IdCounts bucket : ring) {
+                bucket.renumber(renumber);
+            }
+            totals = live;
+            orderSize = liveCount;
+            zeros = 0;
+        }
+
+        private void ensureCapacity(int n) {
+            if (n > order.length) {
+                order = Arrays.copyOf(order, Math.max(n, order.length * 2));
+                position = Arrays.copyOf(position, order.length);
+            }
+        }
+
+        // Top k in the window: the first k of the order, plus whatever ties the k-th, re-sorted by name
+        List<String[]> topK(int k) {
+            int n = Math.min(k, orderSize - zeros);
+            int end = n;
+            while (n > 0 && end < orderSize && totals.counts[order[end]] == totals.counts[order[n - 1]]) end++;
+
+            Integer[] cut = new Integer[end];
+            for (int i = 0; i < end; i++) {
+                cut[i] = order[i];
+            }
+            Arrays.sort(cut, totals::compareEntries);
+            List<String[]> result = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                result.add(new String[]{totals.key(cut[i]), String.valueOf(totals.counts[cut[i]])});
+            }
+            return result;
+        }
+    }
+
+    // Entry index -> count for one bucket (open addressing), clearable in time proportional to its size
+    static class IdCounts {
+        int[] keys = new int[16];   // Entry index per slot, -1 = empty
+        long[] values = new long[16];
+        int[] used = new int[8];     // Occupied slots, for clearing and iterating
+        int size;
+
+        IdCounts() {
+            Arrays.fill(keys, -1);
+        }
+
+        void add(int id, long delta) {
+            int mask = keys.length - 1;
+            int slot = spread(id) & mask;
+            while (keys[slot] != -1) {
+                if (keys[slot] == id) {
+                    values[slot] += delta;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = id;
+            values[slot] = delta;
+            if (size == used.length) used = Arrays.copyOf(used, size * 2);
+            used[size++] = slot;
+            if (size * 2 > keys.length) rebuild(keys.length * 2, null);
+        }
+
+        void clear() {
+            for (int i = 0; i < size; i++) {
+                keys[used[i]] = -1;
+            }
+            size = 0;
+        }
+
+        // Map every key through renumber (after the window compacts its entries)
+        void renumber(int[] renumber) {
+            rebuild(keys.length, renumber);
+        }
+
+        private void rebuild(int capacity, int[] renumber) {
+            int[] oldKeys = keys;
+            long[] oldValues = values;
+            int[] oldUsed = used;
+            int oldSize = size;
+            keys = new int[capacity];
+            values = new long[capacity];
+            used = new int[Math.max(8, oldUsed.length)];
+            Arrays.fill(keys, -1);
+            size = 0;
+            for (int i = 0; i < oldSize; i++) {
+                int slot = oldUsed[i];
+                add(renumber == null ? oldKeys[slot] : renumber[oldKeys[slot]], oldValues[slot]);
+            }
+        }
+    }
+
+    // Epoch seconds from the date column (fourth field): yyyy-MM-dd, optionally followed by
+    // 'T' or ' ' and HH:mm[:ss]. Long.MIN_VALUE if the line has no parseable date.
+    static long tweetTime(byte[] buf, int from, int to) {
+        int i = from;
+        for (int tabs = 0; tabs < 3; tabs++) {
+            while (i < to && buf[i] != '\t') i++;
+            if (i == to) return Long.MIN_VALUE;
+            i++;
+        }
+        if (to - i < 10 || buf[i + 4] != '-' || buf[i + 7] != '-') return Long.MIN_VALUE;
+        int year = digits(buf, i, 4), month = digits(buf, i + 5, 2), day = digits(buf, i + 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31) return Long.MIN_VALUE;
+        long seconds = daysFromCivil(year, month, day) * DAY;
+
+        i += 10;
+        if (to - i >= 6 && (buf[i] == 'T' || buf[i] == ' ') && buf[i + 3] == ':') {
+            int hour = digits(buf, i + 1, 2), minute = digits(buf, i + 4, 2);
+            if (hour < 0 || minute < 0) return Long.MIN_VALUE;
+            seconds += hour * HOUR + minute * 60L;
+            if (to - i >= 9 && buf[i + 6] == ':') {
+                int second = digits(buf, i + 7, 2);
+                if (second >= 0) seconds += second;
+            }
+        }
+        return seconds;
+    }
+
+    // Fixed-width decimal number, -1 if any byte isn't a digit
+    private static int digits(byte[] buf, int at, int count) {
+        int value = 0;
+        for (int i = at; i < at + count; i++) {
+            if (buf[i] < '0' || buf[i] > '9') return -1;
+            value = value * 10 + (buf[i] - '0');
+        }
+        return value;
+    }
+
+    // Days since 1970-01-01 for a proleptic Gregorian date (Howard Hinnant's days_from_civil)
+    static long daysFromCivil(int year, int month, int day) {
+        year -= month <= 2 ? 1 : 0;
+        int era = Math.floorDiv(year, 400);
+        int yearOfEra = year - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+    // Write tweets in the streaming format (one tab-separated line each)
+    static void writeTweets(String[][] tweets, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        for (String[] tweet : tweets) {
+            writer.write(String.join("\t", tweet));
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    public static void main(String[] args) throws IOException {
+        // Streaming mode: java TopHashtags stream [k] < tweets.tsv
+        if (args.length > 0 && args[0].equals("stream")) {
+            int k = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+            for (String[] hashtag : getTopHashtags(System.in, k)) {
+                System.out.println(hashtag[0] + "\t" + hashtag[1]);
+            }
+            return;
+        }
+
+        // Benchmark: java TopHashtags bench [tweets] [distinctTags] [k]
+        if (args.length > 0 && args[0].equals("bench")) {
+            int tweets = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+            int distinct = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+            int k = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+            benchmark(tweets, distinct, k);
+            return;
+        }
+
         // Sample tweet data
         String[][] tweets = {
             {"135", "13", "Enjoying a great start to the day. #HappyDay #MorningVibes", "2024-02-01"},
@@ -62,5 +1117,26 @@ public class TopHashtags {
             System.out.printf("| %-11s | %-7s |\n", hashtag[0], hashtag[1]);
         }
         System.out.println("+-------------+---------+");
+
+        // Same tweets through the streaming counter (should print the same top 3)
+        ByteArrayOutputStream feed = new ByteArrayOutputStream();
+        writeTweets(tweets, feed);
+        List<String[]> streamed = getTopHashtags(new ByteArrayInputStream(feed.toByteArray()), 3);
+        System.out.print("Streaming top 3:");
+        for (String[] hashtag : streamed) {
+            System.out.print(" " + hashtag[0] + "=" + hashtag[1]);
+        }
+        System.out.println();
+
+        // Trending over the last day and the last 7 days (day buckets), as of the newest tweet
+        byte[] feedBytes = feed.toByteArray();
+        for (int days : new int[]{1, 7}) {
+            List<String[]> trending = getTrendingHashtags(new ByteArrayInputStream(feedBytes), days * DAY, days, 3);
+            System.out.print("Trending, last " + days + " day(s):");
+            for (String[] hashtag : trending) {
+                System.out.print(" " + hashtag[0] + "=" + hashtag[1]);
+            }
+            System.out.println();
+        }
     }
 }
\ No newline at end of file
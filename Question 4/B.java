@@ -1,58 +1,69 @@
 import java.util.*;
 
 public class PackageCollector {
+    // Search states are (node, packages collected) packed as node * 2^P + mask, with P = number of
+    // packages; past this many states the search would need gigabytes, so it refuses
+    static final int MAX_STATES = 1 << 26;
+
     public static int minRoads(int[] packages, int[][] roads) {
         int n = packages.length; // Number of nodes (locations)
-        
-        // Build adjacency list for the graph
-        List<List<Integer>> graph = new ArrayList<>();
-        for (int i = 0; i < n; i++) {
-            graph.add(new ArrayList<>());
+        if (n == 0) return -1;
+
+        // Trees (the common case) have a linear-time answer, no search needed
+        if (isTree(n, roads)) return treeMinRoads(packages, roads);
+
+        // Compact adjacency, plus one BFS workspace reused by every BFS below
+        Graph graph = new Graph(n, roads);
+        BfsWorkspace bfs = new BfsWorkspace(n);
+
+        // Give each package that matters its own bit, so masks are P bits wide instead of n
+        int[] packageBit = packageBits(packages, graph, bfs);
+        int p = 0;
+        for (int bit : packageBit) {
+            if (bit != 0) p++;
         }
-        for (int[] road : roads) {
-            graph.get(road[0]).add(road[1]); // Add road from ai to bi
-            graph.get(road[1]).add(road[0]); // Add reverse (bidirectional)
+        if ((long) n << p > MAX_STATES) {
+            throw new IllegalArgumentException("Too many packages for the state search: " + n + " nodes, " + p + " packages");
         }
+        int allPackages = (1 << p) - 1;
+        int[] cover = coverMasks(graph, packageBit, bfs); // Packages within distance 2 of each node
 
+        // Best roads to reach each state; seen[] is stamped with the start, so it's never cleared
+        int[] seen = new int[n << p];
+        int[] queue = new int[n << p];
         int minRoads = Integer.MAX_VALUE; // Track minimum roads needed
 
         // Try starting at each node
         for (int start = 0; start < n; start++) {
-            // BFS state: [current node, roads traversed, packages collected (bitmask)]
-            Queue<int[]> queue = new LinkedList<>();
-            // Track visited states: [node, bitmask] -> min roads to reach
-            Map<String, Integer> visited = new HashMap<>();
-            
-            int initialMask = getPackagesWithinDistance(start, packages, graph); // Initial collection
-            queue.offer(new int[]{start, 0, initialMask}); // Start with 0 roads
-            visited.put(start + "-" + initialMask, 0);
-
-            while (!queue.isEmpty()) {
-                int[] state = queue.poll();
-                int curr = state[0];     // Current node
-                int roadsUsed = state[1]; // Roads traversed so far
-                int mask = state[2];     // Packages collected (bitmask)
-
-                // Check if all packages are collected
-                if (Integer.bitCount(mask) == Integer.bitCount(getAllPackages(packages))) {
-                    // Add roads back to start
-                    int roadsBack = shortestPath(curr, start, graph);
-                    if (roadsBack != -1) { // Ensure path exists
-                        minRoads = Math.min(minRoads, roadsUsed + roadsBack);
-                    }
-                    continue;
-                }
+            bfs.run(graph, start, Integer.MAX_VALUE); // Roads back to start from anywhere (graph is undirected)
+            int stamp = start + 1;
+            int head = 0, tail = 0;
+            int first = start << p | cover[start]; // Initial collection
+            queue[tail++] = first;
+            seen[first] = stamp;
 
-                // Move to adjacent nodes
-                for (int next : graph.get(curr)) {
-                    int newRoads = roadsUsed + 1; // One more road traversed
-                    int newMask = mask | getPackagesWithinDistance(next, packages, graph); // Collect at new spot
-                    String key = next + "-" + newMask;
+            // Level by level, so every state in a level took the same number of roads
+            for (int roadsUsed = 0; head < tail && roadsUsed < minRoads; roadsUsed++) {
+                int levelEnd = tail;
+                while (head < levelEnd) {
+                    int state = queue[head++];
+                    int curr = state >>> p;            // Current node
+                    int mask = state & allPackages;    // Packages collected
 
-                    // If unvisited or fewer roads, explore this state
-                    if (!visited.containsKey(key) || newRoads < visited.get(key)) {
-                        visited.put(key, newRoads);
-                        queue.offer(new int[]{next, newRoads, newMask});
+                    // All packages collected: add the roads back to start
+                    if (mask == allPackages) {
+                        minRoads = Math.min(minRoads, roadsUsed + bfs.distance(curr));
+                        continue;
+                    }
+
+                    // Move to adjacent nodes, collecting whatever is in reach there
+                    for (int e = graph.offsets[curr]; e < graph.offsets[curr + 1]; e++) {
+                        int next = graph.targets[e];
+                        int nextState = next << p | mask | cover[next];
+                        if (seen[nextState] != stamp) {
+                            seen[nextState] = stamp;
+                            queue[tail++] = nextState;
+                        }
                     }
                 }
             }
@@ -61,68 +72,224 @@ public class PackageCollector {
         return minRoads == Integer.MAX_VALUE ? -1 : minRoads; // Return -1 if impossible
     }
 
-    // Get bitmask of packages within distance 2 from a node
-    private static int getPackagesWithinDistance(int node, int[] packages, List<List<Integer>> graph) {
-        int mask = 0;
-        // BFS to find nodes within distance 2
-        Queue<int[]> queue = new LinkedList<>();
-        Set<Integer> visited = new HashSet<>();
-        queue.offer(new int[]{node, 0}); // [node, distance]
-        visited.add(node);
-
-        while (!queue.isEmpty()) {
-            int[] curr = queue.poll();
-            int loc = curr[0];
-            int dist = curr[1];
-
-            if (dist <= 2) { // Collect packages within distance 2
-                if (packages[loc] == 1) {
-                    mask |= (1 << loc); // Set bit for this location
+    // A tree has n - 1 roads and no cycle. With only degrees and the XOR of each node's neighbours
+    // we can peel leaves one by one (a leaf's last neighbour is its XOR); everything peels away
+    // exactly when there is no cycle. Self-loops and repeated roads never peel, so they fail too.
+    static boolean isTree(int n, int[][] roads) {
+        if (roads.length != n - 1) return false;
+        int[] degree = new int[n];
+        int[] neighbours = new int[n]; // XOR of the neighbours not yet peeled
+        for (int[] road : roads) {
+            degree[road[0]]++;
+            degree[road[1]]++;
+            neighbours[road[0]] ^= road[1];
+            neighbours[road[1]] ^= road[0];
+        }
+
+        int[] queue = new int[n];
+        int tail = 0;
+        for (int node = 0; node < n; node++) {
+            if (degree[node] <= 1) queue[tail++] = node;
+        }
+        for (int head = 0; head < tail; head++) {
+            int leaf = queue[head];
+            if (degree[leaf] == 0) continue; // Last node of the tree
+            int parent = neighbours[leaf];
+            degree[leaf] = 0;
+            neighbours[parent] ^= leaf;
+            if (--degree[parent] == 1) queue[tail++] = parent;
+        }
+        return tail == n;
+    }
+
+    // O(n) answer for a tree. Leaves without a package are never worth visiting, so prune them
+    // until every leaf holds a package. Those packages can be picked up from 2 roads away, so the
+    // two outermost layers of what's left need no visit either. The walk covers every remaining
+    // road twice (there and back).
+    static int treeMinRoads(int[] packages, int[][] roads) {
+        int n = packages.length;
+        int[] degree = new int[n];
+        int[] neighbours = new int[n]; // XOR of the remaining neighbours
+        for (int[] road : roads) {
+            degree[road[0]]++;
+            degree[road[1]]++;
+            neighbours[road[0]] ^= road[1];
+            neighbours[road[1]] ^= road[0];
+        }
+        int remaining = n;
+
+        // Prune package-free leaves, repeatedly
+        int[] queue = new int[n];
+        int tail = 0;
+        for (int node = 0; node < n; node++) {
+            if (degree[node] == 1 && packages[node] == 0) queue[tail++] = node;
+        }
+        for (int head = 0; head < tail; head++) {
+            int leaf = queue[head];
+            int parent = neighbours[leaf];
+            degree[leaf] = 0;
+            remaining--;
+            neighbours[parent] ^= leaf;
+            if (--degree[parent] == 1 && packages[parent] == 0) queue[tail++] = parent;
+        }
+
+        // Strip the two outer layers of leaves
+        for (int layer = 0; layer < 2; layer++) {
+            tail = 0;
+            for (int node = 0; node < n; node++) {
+                if (degree[node] == 1) queue[tail++] = node;
+            }
+            for (int i = 0; i < tail; i++) {
+                int leaf = queue[i];
+                remaining--;
+                // Two leaves joined by the last road: the second one has no neighbour left to update
+                if (degree[leaf] == 1) {
+                    int parent = neighbours[leaf];
+                    neighbours[parent] ^= leaf;
+                    degree[parent]--;
                 }
-                for (int neighbor : graph.get(loc)) {
-                    if (!visited.contains(neighbor)) {
-                        visited.add(neighbor);
-                        queue.offer(new int[]{neighbor, dist + 1});
+                degree[leaf] = 0;
+            }
+        }
+
+        // What's left is a subtree with remaining - 1 roads, each walked twice
+        return Math.max(0, 2 * (remaining - 1));
+    }
+
+    // Roads in compressed sparse row form: the neighbours of v are targets[offsets[v]..offsets[v + 1])
+    static class Graph {
+        final int n;
+        final int[] offsets;
+        final int[] targets;
+
+        Graph(int n, int[][] roads) {
+            this.n = n;
+            offsets = new int[n + 1];
+            targets = new int[2 * roads.length];
+
+            // Count degrees, turn them into start offsets, then drop each road into both ends' ranges
+            for (int[] road : roads) {
+                offsets[road[0] + 1]++;
+                offsets[road[1] + 1]++;
+            }
+            for (int v = 0; v < n; v++) {
+                offsets[v + 1] += offsets[v];
+            }
+            int[] fill = Arrays.copyOf(offsets, n);
+            for (int[] road : roads) {
+                targets[fill[road[0]]++] = road[1];
+                targets[fill[road[1]]++] = road[0];
+            }
+        }
+    }
+
+    // Everything a BFS needs, allocated once and reused: an int queue, and a visited array stamped
+    // with the run number so starting a new run never has to clear it
+    static class BfsWorkspace {
+        final int[] queue;
+        final int[] visited; // Run number that last reached each node
+        final int[] dist;    // Roads from the source, valid where visited == run
+        int run;
+        int reached;         // queue[0..reached) = nodes reached by the last run, in BFS order
+
+        BfsWorkspace(int n) {
+            queue = new int[n];
+            visited = new int[n];
+            dist = new int[n];
+        }
+
+        // BFS from source, going at most maxDepth roads out
+        void run(Graph graph, int source, int maxDepth) {
+            if (++run == Integer.MAX_VALUE) {
+                Arrays.fill(visited, 0); // Stamps wrapped around: start over
+                run = 1;
+            }
+            int head = 0, tail = 0;
+            queue[tail++] = source;
+            visited[source] = run;
+            dist[source] = 0;
+            while (head < tail) {
+                int node = queue[head++];
+                if (dist[node] == maxDepth) continue;
+                for (int e = graph.offsets[node]; e < graph.offsets[node + 1]; e++) {
+                    int next = graph.targets[e];
+                    if (visited[next] != run) {
+                        visited[next] = run;
+                        dist[next] = dist[node] + 1;
+                        queue[tail++] = next;
                     }
                 }
             }
+            reached = tail;
+        }
+
+        // Roads from the last run's source, -1 if it wasn't reached
+        int distance(int node) {
+            return visited[node] == run ? dist[node] : -1;
         }
-        return mask;
     }
 
-    // Get bitmask of all packages
-    private static int getAllPackages(int[] packages) {
-        int mask = 0;
-        for (int i = 0; i < packages.length; i++) {
-            if (packages[i] == 1) {
-                mask |= (1 << i);
+    // Bit per package, 0 for packages the search can ignore. If every node that reaches package u
+    // (within distance 2) also reaches package w, collecting u always collects w, so w needs no bit.
+    static int[] packageBits(int[] packages, Graph graph, BfsWorkspace bfs) {
+        int n = packages.length;
+        int words = (n + 63) >>> 6;
+
+        // locs[i] = node of package i, reach[i] = the nodes within distance 2 of it, as a bitset
+        int count = 0;
+        for (int pkg : packages) {
+            if (pkg == 1) count++;
+        }
+        int[] locs = new int[count];
+        long[][] reach = new long[count][];
+        count = 0;
+        for (int loc = 0; loc < n; loc++) {
+            if (packages[loc] != 1) continue;
+            long[] nodes = new long[words];
+            bfs.run(graph, loc, 2);
+            for (int i = 0; i < bfs.reached; i++) {
+                int node = bfs.queue[i];
+                nodes[node >>> 6] |= 1L << node;
             }
+            locs[count] = loc;
+            reach[count++] = nodes;
         }
-        return mask;
-    }
 
-    // Shortest path between two nodes (BFS)
-    private static int shortestPath(int start, int end, List<List<Integer>> graph) {
-        if (start == end) return 0;
-        Queue<int[]> queue = new LinkedList<>();
-        Set<Integer> visited = new HashSet<>();
-        queue.offer(new int[]{start, 0}); // [node, distance]
-        visited.add(start);
-
-        while (!queue.isEmpty()) {
-            int[] curr = queue.poll();
-            int node = curr[0];
-            int dist = curr[1];
-
-            if (node == end) return dist;
-            for (int next : graph.get(node)) {
-                if (!visited.contains(next)) {
-                    visited.add(next);
-                    queue.offer(new int[]{next, dist + 1});
+        int[] packageBit = new int[n];
+        int p = 0;
+        for (int i = 0; i < count; i++) {
+            // Drop i if another package is reached from a subset of its nodes (equal sets: keep the first)
+            boolean implied = false;
+            for (int j = 0; j < count && !implied; j++) {
+                if (j != i && subset(reach[j], reach[i]) && (j < i || !subset(reach[i], reach[j]))) {
+                    implied = true;
                 }
             }
+            if (implied) continue;
+            if (p == 30) throw new IllegalArgumentException("Too many packages for the state search");
+            packageBit[locs[i]] = 1 << p++;
+        }
+        return packageBit;
+    }
+
+    private static boolean subset(long[] a, long[] b) {
+        for (int w = 0; w < a.length; w++) {
+            if ((a[w] & ~b[w]) != 0) return false;
         }
-        return -1; // No path found
+        return true;
+    }
+
+    // Bitmask of packages within distance 2 of each node (found from the packages' side)
+    static int[] coverMasks(Graph graph, int[] packageBit, BfsWorkspace bfs) {
+        int[] cover = new int[graph.n];
+        for (int loc = 0; loc < graph.n; loc++) {
+            if (packageBit[loc] == 0) continue;
+            bfs.run(graph, loc, 2);
+            for (int i = 0; i < bfs.reached; i++) {
+                cover[bfs.queue[i]] |= packageBit[loc];
+            }
+        }
+        return cover;
     }
 
     public static void main(String[] args) {
@@ -135,5 +302,18 @@ public class PackageCollector {
         int[] packages2 = {0, 0, 0, 1, 1, 0, 0, 1};
         int[][] roads2 = {{0, 1}, {0, 2}, {1, 3}, {1, 4}, {2, 5}, {5, 6}, {5, 7}};
         System.out.println("Test 2: " + minRoads(packages2, roads2)); // Expect 2
+
+        // Large road tree (random, 10^6 nodes), handled by the linear-time tree solver
+        int n = 1_000_000;
+        Random rand = new Random(3);
+        int[] packages3 = new int[n];
+        int[][] roads3 = new int[n - 1][];
+        for (int i = 1; i < n; i++) {
+            roads3[i - 1] = new int[]{rand.nextInt(i), i};
+            packages3[i] = rand.nextInt(100) == 0 ? 1 : 0;
+        }
+        long start = System.nanoTime();
+        int roads = minRoads(packages3, roads3);
+        System.out.printf("Test 3: %d (%d nodes, %.1f ms)%n", roads, n, (System.nanoTime() - start) / 1e6);
     }
 }
\ No newline at end of file
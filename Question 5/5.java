@@ -14,36 +14,6 @@ public class NetworkOptimizer {
         }
     }
 
-    // Union-Find for MST
-    static class UnionFind {
-        int[] parent, rank;
-
-        UnionFind(int n) {
-            parent = new int[n];
-            rank = new int[n];
-            for (int i = 0; i < n; i++) {
-                parent[i] = i;
-            }
-        }
-
-        int find(int x) {
-            if (parent[x] != x) {
-                parent[x] = find(parent[x]);
-            }
-            return parent[x];
-        }
-
-        void union(int x, int y) {
-            int rootX = find(x);
-            int rootY = find(y);
-            if (rootX != rootY) {
-                if (rank[rootX] < rank[rootY]) parent[rootX] = rootY;
-                else if (rank[rootX] > rank[rootY]) parent[rootY] = rootX;
-                else { parent[rootY] = rootX; rank[rootX]++; }
-            }
-        }
-    }
-
     // Graph representation
     static int n; // Number of nodes
     static List<Edge> edges; // All possible connections
@@ -63,17 +33,27 @@ public class NetworkOptimizer {
         }
     }
 
-    // Find Minimum Spanning Tree (minimizes cost)
+    // Find Minimum Spanning Tree (minimizes cost) via the shared engine (Shared/MstEngine.java).
+    // This program no longer runs on its own; run it with the engine on the class path:
+    //   javac -d out Shared/MstEngine.java && java -cp out "Question 5/5.java"
     public static List<Edge> getMST() {
-        List<Edge> mst = new ArrayList<>();
-        edges.sort((a, b) -> a.cost - b.cost); // Sort by cost
-        UnionFind uf = new UnionFind(n);
+        // Flatten the connections into primitive arrays for the engine
+        int m = edges.size();
+        int[] src = new int[m], dest = new int[m], cost = new int[m];
+        for (int i = 0; i < m; i++) {
+            Edge e = edges.get(i);
+            src[i] = e.src;
+            dest[i] = e.dest;
+            cost[i] = e.cost;
+        }
 
-        for (Edge e : edges) {
-            if (uf.find(e.src) != uf.find(e.dest)) {
-                uf.union(e.src, e.dest);
-                mst.add(e);
-            }
+        boolean[] chosen = new boolean[m];
+        MstEngine.minimumSpanningForest(n, src, dest, cost, m, chosen);
+
+        // Report the chosen edges cheapest first, the order Kruskal would have picked them in
+        List<Edge> mst = new ArrayList<>();
+        for (int i : MstEngine.sortedByCost(cost, m)) {
+            if (chosen[i]) mst.add(edges.get(i));
         }
         return mst;
     }
@@ -0,0 +1,248 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Minimum spanning forest engine shared by MinNetworkCost (Question 3) and NetworkOptimizer (Question 5).
+// Those two programs no longer run on their own: compile the engine first and put it on the
+// class path of the single-file launcher, e.g.
+//   javac -d out Shared/MstEngine.java && java -cp out "Question 5/5.java"
+//   javac -d out Shared/MstEngine.java && java -cp out "Question 3/A.java"
+//
+// Edges are parallel primitive arrays (src, dst, cost). Ties are broken by edge index, so every
+// graph has exactly one MST under (cost, index) and both algorithms below return the same edges.
+public class MstEngine {
+    // Below this many edges the sequential Kruskal wins; above it the parallel Boruvka takes over
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    // Edges (or nodes) handled by one fork-join leaf
+    static final int GRAIN = 1 << 13;
+
+    // Picks sequential or parallel by size; marks chosen edges in chosen (if not null), returns total cost
+    public static long minimumSpanningForest(int nodes, int[] src, int[] dst, int[] cost, int edgeCount, boolean[] chosen) {
+        if (edgeCount < PARALLEL_THRESHOLD) {
+            return kruskal(nodes, src, dst, cost, edgeCount, chosen);
+        }
+        return boruvka(nodes, src, dst, cost, edgeCount, chosen, ForkJoinPool.commonPool());
+    }
+
+    // Sequential Kruskal: radix-sorted edge order plus an iterative union-find
+    public static long kruskal(int nodes, int[] src, int[] dst, int[] cost, int edgeCount, boolean[] chosen) {
+        int[] order = sortedByCost(cost, edgeCount);
+        UnionFind uf = new UnionFind(nodes);
+        long total = 0;
+
+        // Take every edge that joins two different components, cheapest first
+        for (int k = 0; k < edgeCount; k++) {
+            int e = order[k];
+            if (uf.union(src[e], dst[e])) {
+                total += cost[e];
+                if (chosen != null) chosen[e] = true;
+            }
+        }
+        return total;
+    }
+
+    // Parallel Boruvka: each round every component grabs its cheapest outgoing edge, then all of
+    // those edges are unioned at once. Components at least halve per round, so O(log V) rounds.
+    public static long boruvka(int nodes, int[] src, int[] dst, int[] cost, int edgeCount, boolean[] chosen,
+                               ForkJoinPool pool) {
+        ConcurrentUnionFind uf = new ConcurrentUnionFind(nodes);
+        AtomicIntegerArray cheapest = new AtomicIntegerArray(nodes); // Best edge per root, -1 if none
+        LongAdder total = new LongAdder();
+        LongAdder merged = new LongAdder();
+
+        while (true) {
+            // Reset the per-component candidates
+            pool.invoke(new RangeTask(0, nodes, (from, to) -> {
+                for (int v = from; v < to; v++) {
+                    cheapest.set(v, -1);
+                }
+            }));
+
+            // Every edge between two components offers itself to both of them
+            pool.invoke(new RangeTask(0, edgeCount, (from, to) -> {
+                for (int e = from; e < to; e++) {
+                    int ru = uf.find(src[e]);
+                    int rv = uf.find(dst[e]);
+                    if (ru != rv) {
+                        offer(cheapest, ru, e, cost);
+                        offer(cheapest, rv, e, cost);
+                    }
+                }
+            }));
+
+            // Union along every winning edge; an edge picked by both its ends only succeeds once
+            merged.reset();
+            pool.invoke(new RangeTask(0, nodes, (from, to) -> {
+                for (int v = from; v < to; v++) {
+                    int e = cheapest.get(v);
+                    if (e != -1 && uf.union(src[e], dst[e])) {
+                        if (chosen != null) chosen[e] = true;
+                        total.add(cost[e]);
+                        merged.increment();
+                    }
+                }
+            }));
+
+            // No component had an outgoing edge left: the forest is complete
+            if (merged.sum() == 0) break;
+        }
+        return total.sum();
+    }
+
+    // Lock-free "keep the cheaper edge" for one component root
+    private static void offer(AtomicIntegerArray cheapest, int root, int e, int[] cost) {
+        while (true) {
+            int current = cheapest.get(root);
+            if (current != -1 && !cheaper(e, current, cost)) return;
+            if (cheapest.compareAndSet(root, current, e)) return;
+        }
+    }
+
+    // Total order on edges: by cost, then by index
+    private static boolean cheaper(int a, int b, int[] cost) {
+        return cost[a] < cost[b] || (cost[a] == cost[b] && a < b);
+    }
+
+    // Edge indices 0..edgeCount-1 stably sorted by cost (LSD radix sort, one byte per pass)
+    public static int[] sortedByCost(int[] cost, int edgeCount) {
+        int[] order = new int[edgeCount];
+        int[] tmp = new int[edgeCount];
+        int[] counts = new int[257];
+        for (int i = 0; i < edgeCount; i++) {
+            order[i] = i;
+        }
+
+        for (int shift = 0; shift < 32; shift += 8) {
+            // Flip the sign bit so negative costs sort before positive ones
+            java.util.Arrays.fill(counts, 0);
+            for (int i = 0; i < edgeCount; i++) {
+                counts[(((cost[order[i]] ^ Integer.MIN_VALUE) >>> shift) & 0xFF) + 1]++;
+            }
+
+            // Everything landed in one bucket: this byte doesn't change the order
+            boolean trivial = false;
+            for (int b = 1; b <= 256; b++) {
+                if (counts[b] == edgeCount) {
+                    trivial = true;
+                    break;
+                }
+            }
+            if (trivial) continue;
+
+            // Prefix sums give each bucket its first output slot
+            for (int b = 0; b < 256; b++) {
+                counts[b + 1] += counts[b];
+            }
+            for (int i = 0; i < edgeCount; i++) {
+                tmp[counts[((cost[order[i]] ^ Integer.MIN_VALUE) >>> shift) & 0xFF]++] = order[i];
+            }
+
+            // Swap buffers instead of copying back
+            int[] t = order; order = tmp; tmp = t;
+        }
+        return order;
+    }
+
+    // Union-Find for the sequential path: path halving and union by rank, no recursion
+    static class UnionFind {
+        final int[] parent, rank;
+
+        UnionFind(int n) {
+            parent = new int[n];
+            rank = new int[n];
+            for (int i = 0; i < n; i++) {
+                parent[i] = i;
+            }
+        }
+
+        // Find the root, pointing each node at its grandparent on the way up
+        int find(int x) {
+            while (parent[x] != x) {
+                parent[x] = parent[parent[x]];
+                x = parent[x];
+            }
+            return x;
+        }
+
+        // Merge the sets of x and y; false if they were already together
+        boolean union(int x, int y) {
+            int rootX = find(x);
+            int rootY = find(y);
+            if (rootX == rootY) return false;
+            if (rank[rootX] < rank[rootY]) {
+                parent[rootX] = rootY;
+            } else if (rank[rootX] > rank[rootY]) {
+                parent[rootY] = rootX;
+            } else {
+                parent[rootY] = rootX;
+                rank[rootX]++;
+            }
+            return true;
+        }
+    }
+
+    // Lock-free Union-Find: parents live in an AtomicIntegerArray and only ever point to a larger
+    // index, so concurrent links (by CAS on a root) can never form a cycle
+    static class ConcurrentUnionFind {
+        final AtomicIntegerArray parent;
+
+        ConcurrentUnionFind(int n) {
+            parent = new AtomicIntegerArray(n);
+            for (int i = 0; i < n; i++) {
+                parent.set(i, i);
+            }
+        }
+
+        // Find the root with path halving; a failed CAS just means someone else already shortened it
+        int find(int x) {
+            while (true) {
+                int p = parent.get(x);
+                if (p == x) return x;
+                int gp = parent.get(p);
+                if (p != gp) parent.compareAndSet(x, p, gp);
+                x = gp;
+            }
+        }
+
+        // Link the smaller root under the larger one; retries if a root changed underneath us
+        boolean union(int x, int y) {
+            while (true) {
+                int rootX = find(x);
+                int rootY = find(y);
+                if (rootX == rootY) return false;
+                int low = Math.min(rootX, rootY);
+                int high = Math.max(rootX, rootY);
+                if (parent.compareAndSet(low, low, high)) return true;
+            }
+        }
+    }
+
+    // Work over [from, to) for one fork-join leaf
+    interface RangeBody {
+        void run(int from, int to);
+    }
+
+    // Splits an index range in half until each piece is at most GRAIN long
+    static class RangeTask extends RecursiveAction {
+        final int lo, hi;
+        final RangeBody body;
+
+        RangeTask(int lo, int hi, RangeBody body) {
+            this.lo = lo;
+            this.hi = hi;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= GRAIN) {
+                body.run(lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new RangeTask(lo, mid, body), new RangeTask(mid, hi, body));
+        }
+    }
+}
\ No newline at end of file